@@ -1,19 +1,37 @@
 package main;
 
+import java.awt.AWTException;
+import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.swing.JPanel;
 
 import state.StateManager;
+import toolObjects.AssetCache;
 
 /**
  * A JPanel object in which every thing is painted on.
  * 
+ * By default the panel renders actively on a Canvas through a BufferStrategy,
+ * which flips pages where available and keeps its back buffers in
+ * accelerated VolatileImages. Setting the digger.passiveRendering system
+ * property renders into a BufferedImage copied onto the panel instead.
+ * 
+ * Key events arrive on the event dispatch thread. They are queued there and
+ * applied on the game thread at the start of each frame, so input never
+ * changes the states, such as a Level's map, while they are updated or drawn.
+ * 
  * @author Mark Hays and his students.. Created Feb 5, 2015.
  */
 @SuppressWarnings("serial")
@@ -28,10 +46,32 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 
 	private BufferedImage image; // The main image.
 	private Graphics2D g2; // The main Graphics2D.
+	private boolean isActiveRendering; // If frames are rendered on the canvas.
+	private Canvas canvas; // The canvas rendered on actively.
+	private BufferStrategy bufferStrategy; // The canvas' back buffers.
 
 	// Wait time calculations.
 	private int FPS = 60;
-	private long targetTime = 1000 / this.FPS;
+	private final long FRAME_TIME = 1000000000L / this.FPS; // The time between
+															// frame deadlines
+															// in nanoseconds.
+	private final long SPIN_TIME = 2000000L; // The time before a deadline
+												// spent yielding instead of
+												// sleeping in nanoseconds.
+	private final long RATE_TIME = 1000000000L; // The time the update and
+												// frame rates are measured
+												// over in nanoseconds.
+	private final long UPDATE_TIME = 1000000000L / this.FPS; // The simulated
+																// time of one
+																// update in
+																// nanoseconds.
+	private final int MAX_UPDATES_PER_FRAME = 5; // The most updates run to
+													// catch up before a frame
+													// is rendered.
+
+	// Achieved rates.
+	private volatile double updateRate; // The updates run per second.
+	private volatile double frameRate; // The frames rendered per second.
 
 	// Stores StateManager
 	private StateManager stateManager;
@@ -39,6 +79,9 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 	// Pause status of the panel.
 	private boolean pauseStatus;
 
+	// The key events waiting to be applied on the game thread.
+	private ConcurrentLinkedQueue<KeyEvent> keyEvents;
+
 	/**
 	 * Constructs a GamePanel object, a Jpanel, with specific size preference
 	 * 
@@ -49,13 +92,30 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 				GamePanel.GAMEPANEL_HEIGHT));
 		setFocusable(true);
 		requestFocus();
+
+		// Decode every asset before the game starts.
+		AssetCache.preload();
 		this.stateManager = new StateManager();
+		this.keyEvents = new ConcurrentLinkedQueue<KeyEvent>();
+
+		// Set up the canvas for active rendering.
+		this.isActiveRendering = !Boolean.getBoolean("digger.passiveRendering");
+		this.canvas = null;
+		if (this.isActiveRendering) {
+			setLayout(new BorderLayout());
+			this.canvas = new Canvas();
+			this.canvas.setPreferredSize(new Dimension(
+					GamePanel.GAMEPANEL_WIDTH, GamePanel.GAMEPANEL_HEIGHT));
+			this.canvas.setIgnoreRepaint(true);
+			add(this.canvas, BorderLayout.CENTER);
+		}
 
 		// Undeclared at construction;
 		this.thread = null;
 		this.isRunning = false;
 		this.image = null;
 		this.g2 = null;
+		this.bufferStrategy = null;
 	}
 
 	@Override
@@ -64,39 +124,131 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 		if (this.thread == null) {
 			this.thread = new Thread(this);
 			addKeyListener(this);
+			if (this.canvas != null) {
+				this.canvas.addKeyListener(this);
+			}
 			this.thread.start();
 		}
 	}
 
+	/**
+	 * Runs the main game loop. The game is updated in fixed steps of
+	 * UPDATE_TIME, so it runs at the same speed whatever the frame rate. The
+	 * time passed since the last frame is accumulated as lag, and as many
+	 * updates as fit in it are run before the next frame is rendered. If the
+	 * loop falls too far behind, the extra lag is dropped instead of running
+	 * more updates.
+	 * 
+	 * Frames are paced against absolute deadlines FRAME_TIME apart, so the
+	 * time a frame takes is not added to the wait and the frame rate does not
+	 * drift. If a frame misses its deadline by more than a frame, the
+	 * deadlines start again from the current time.
+	 * 
+	 */
 	@Override
 	public void run() {
 		initialize();
 
+		long previousTime = System.nanoTime();
+		long deadline = previousTime + this.FRAME_TIME;
+		long lag = 0;
+
+		// Rate measurement.
+		long rateStartTime = previousTime;
+		int updateCount = 0;
+		int frameCount = 0;
+
 		// Main game loop.
 		while (true) {
 			if (!this.isRunning) {
 				break;
 			}
 
-			long startTime = System.nanoTime();
-			// Run the basics.
-			update();
+			long currentTime = System.nanoTime();
+			lag = lag + (currentTime - previousTime);
+			previousTime = currentTime;
+
+			// Apply the input that arrived since the last frame.
+			processKeyEvents();
+
+			// Catch up on the updates due since the last frame.
+			int updates = 0;
+			while (lag >= this.UPDATE_TIME
+					&& updates < this.MAX_UPDATES_PER_FRAME) {
+				update();
+				lag = lag - this.UPDATE_TIME;
+				updates++;
+			}
+			if (lag >= this.UPDATE_TIME) {
+				lag = 0;
+			}
+			updateCount = updateCount + updates;
+
+			// Render the frame.
 			render();
-			draw();
-			long endTime = System.nanoTime();
-			long fps = 1000000000L/(endTime- startTime);
-			System.err.println(fps);
+			frameCount++;
+
+			// Measure the achieved rates.
+			if (currentTime - rateStartTime >= this.RATE_TIME) {
+				double seconds = (currentTime - rateStartTime) / 1000000000.0;
+				this.updateRate = updateCount / seconds;
+				this.frameRate = frameCount / seconds;
+				rateStartTime = currentTime;
+				updateCount = 0;
+				frameCount = 0;
+			}
 
+			// Wait for the next frame deadline.
+			waitUntil(deadline);
+			deadline = deadline + this.FRAME_TIME;
+			if (System.nanoTime() - deadline > this.FRAME_TIME) {
+				deadline = System.nanoTime() + this.FRAME_TIME;
+			}
+		}
+
+	}
+
+	/**
+	 * Waits until the specified deadline. Sleeps for most of the remaining
+	 * time and yields for the last SPIN_TIME, since a sleep can wake up late.
+	 * 
+	 * @param deadline
+	 *            the System.nanoTime() value to wait until.
+	 */
+	private void waitUntil(long deadline) {
+		long remaining = deadline - System.nanoTime();
+		if (remaining > this.SPIN_TIME) {
 			try {
-				Thread.sleep(this.targetTime);
+				Thread.sleep((remaining - this.SPIN_TIME) / 1000000);
 			} catch (Exception e) {
 				// Print error stack trace and end program.
 				e.printStackTrace();
 				System.exit(0);
 			}
-
 		}
+		while (System.nanoTime() - deadline < 0) {
+			Thread.yield();
+		}
+	}
 
+	/**
+	 * Returns the number of updates run per second, measured over the last
+	 * second.
+	 * 
+	 * @return the achieved update rate.
+	 */
+	public double getUpdateRate() {
+		return this.updateRate;
+	}
+
+	/**
+	 * Returns the number of frames rendered per second, measured over the
+	 * last second.
+	 * 
+	 * @return the achieved frame rate.
+	 */
+	public double getFrameRate() {
+		return this.frameRate;
 	}
 
 	/**
@@ -109,12 +261,38 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 		// Set isRunning to true.
 		this.isRunning = true;
 
+		// Create the canvas' back buffers for active rendering.
+		if (this.isActiveRendering) {
+			createBufferStrategy();
+			this.canvas.requestFocus();
+			return;
+		}
+
 		// Generate a new BufferImage and Graphics2D for use.
 		this.image = new BufferedImage(GamePanel.GAMEPANEL_WIDTH,
 				GamePanel.GAMEPANEL_HEIGHT, BufferedImage.TYPE_INT_RGB);
 		this.g2 = (Graphics2D) this.image.getGraphics();
 	}
 
+	/**
+	 * Creates the canvas' BufferStrategy. Page flipping with accelerated
+	 * back buffers is asked for first. If it is not available, the canvas
+	 * falls back to the best strategy it supports, such as blitting from an
+	 * accelerated back buffer.
+	 * 
+	 */
+	private void createBufferStrategy() {
+		BufferCapabilities flipping = new BufferCapabilities(
+				new ImageCapabilities(true), new ImageCapabilities(true),
+				BufferCapabilities.FlipContents.UNDEFINED);
+		try {
+			this.canvas.createBufferStrategy(2, flipping);
+		} catch (AWTException e) {
+			this.canvas.createBufferStrategy(2);
+		}
+		this.bufferStrategy = this.canvas.getBufferStrategy();
+	}
+
 	/**
 	 * Updates any subsequent field if necessary.
 	 * 
@@ -128,11 +306,41 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 	}
 
 	/**
-	 * Draws on the Graphics2D object, g2.
+	 * Renders a frame and shows it. Frames are drawn on the canvas' back
+	 * buffer when rendering actively, and otherwise on the Graphics2D object,
+	 * g2, which is then drawn on the panel.
 	 * 
 	 */
 	private void render() {
+		if (this.bufferStrategy != null) {
+			renderActive();
+			return;
+		}
 		this.stateManager.draw(this.g2);
+		draw();
+	}
+
+	/**
+	 * Draws a frame on the canvas' back buffer and shows it. If the back
+	 * buffer is restored while it is drawn, or lost before it is shown, the
+	 * frame is drawn again. Drawing the states does not change them, so
+	 * drawing a frame twice is safe.
+	 * 
+	 */
+	private void renderActive() {
+		do {
+			do {
+				Graphics2D g = (Graphics2D) this.bufferStrategy
+						.getDrawGraphics();
+				this.stateManager.draw(g);
+				g.dispose();
+			} while (this.bufferStrategy.contentsRestored());
+
+			this.bufferStrategy.show();
+		} while (this.bufferStrategy.contentsLost());
+
+		// Flush the window system's queue so the frame is shown now.
+		Toolkit.getDefaultToolkit().sync();
 	}
 
 	/**
@@ -168,10 +376,33 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 		return this.pauseStatus;
 	}
 
-	@Override
-	public void keyPressed(KeyEvent e) {
+	/**
+	 * Applies the queued key events in the order they arrived. Runs on the
+	 * game thread.
+	 * 
+	 */
+	private void processKeyEvents() {
+		KeyEvent e = this.keyEvents.poll();
+		while (e != null) {
+			if (e.getID() == KeyEvent.KEY_PRESSED) {
+				applyKeyPressed(e.getKeyCode());
+			} else {
+				this.stateManager.keyReleased(e.getKeyCode());
+			}
+			e = this.keyEvents.poll();
+		}
+	}
+
+	/**
+	 * Applies a pressed key. P pauses and unpauses the game, and other keys
+	 * are passed to the StateManager unless the game is paused.
+	 * 
+	 * @param keyCode
+	 *            the code of the pressed key.
+	 */
+	private void applyKeyPressed(int keyCode) {
 		// Pauses and Unpauses Game.
-		if (e.getKeyCode() == KeyEvent.VK_P) {
+		if (keyCode == KeyEvent.VK_P) {
 			setPause();
 			this.stateManager.keyPressed(KeyEvent.VK_P);
 		}
@@ -182,14 +413,21 @@ public class GamePanel extends JPanel implements Runnable, KeyListener {
 		}
 
 		// Pass keyCode for manager to handle.
-		if (e.getKeyCode() != KeyEvent.VK_P) {
-			this.stateManager.keyPressed(e.getKeyCode());
+		if (keyCode != KeyEvent.VK_P) {
+			this.stateManager.keyPressed(keyCode);
 		}
 	}
 
+	@Override
+	public void keyPressed(KeyEvent e) {
+		// Applied on the game thread.
+		this.keyEvents.add(e);
+	}
+
 	@Override
 	public void keyReleased(KeyEvent e) {
-		this.stateManager.keyReleased(e.getKeyCode());
+		// Applied on the game thread.
+		this.keyEvents.add(e);
 	}
 
 	@Override
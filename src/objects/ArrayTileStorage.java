@@ -0,0 +1,101 @@
+package objects;
+
+/**
+ * A TileStorage that keeps every tile of the map on the heap in a single byte
+ * array, row by row. A tileID takes one byte and neighboring tiles of a row
+ * are next to each other in memory.
+ */
+public class ArrayTileStorage implements TileStorage {
+	private int width; // The number of tiles in the X direction.
+	private int height; // The number of tiles in the Y direction.
+	private byte[] tiles; // The tileIDs of the map, row by row.
+
+	/**
+	 * Constructs an ArrayTileStorage of the specified tiles. The array is used
+	 * directly, not copied.
+	 *
+	 * @param width
+	 *            the number of tiles in the X direction.
+	 * @param height
+	 *            the number of tiles in the Y direction.
+	 * @param tiles
+	 *            the tileIDs of the map, row by row.
+	 */
+	public ArrayTileStorage(int width, int height, byte[] tiles) {
+		if (tiles.length != width * height) {
+			throw new IllegalArgumentException("Expected " + width * height
+					+ " tiles but got " + tiles.length + ".");
+		}
+		this.width = width;
+		this.height = height;
+		this.tiles = tiles;
+	}
+
+	/**
+	 * Constructs an ArrayTileStorage of the specified size with every tile set
+	 * to 0.
+	 *
+	 * @param width
+	 *            the number of tiles in the X direction.
+	 * @param height
+	 *            the number of tiles in the Y direction.
+	 */
+	public ArrayTileStorage(int width, int height) {
+		this(width, height, new byte[width * height]);
+	}
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public int getTile(int x, int y) {
+		return this.tiles[toIndex(x, y)] & 0xFF;
+	}
+
+	@Override
+	public void setTile(int x, int y, int tileID) {
+		if (tileID < 0 || tileID > LevelFile.MAX_TILE_ID) {
+			throw new IllegalArgumentException("TileID " + tileID
+					+ " does not fit in a byte.");
+		}
+		this.tiles[toIndex(x, y)] = (byte) tileID;
+	}
+
+	@Override
+	public int[] countTiles() {
+		// The tiles are already on the heap, so they are simply scanned.
+		int[] counts = new int[LevelFile.MAX_TILE_ID + 1];
+		for (int i = 0; i < this.tiles.length; i++) {
+			counts[this.tiles[i] & 0xFF]++;
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the index of the tile at the specified coordinates in the tile
+	 * array.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the index of the tile.
+	 * @throws IndexOutOfBoundsException
+	 *             if the coordinates are outside the map.
+	 */
+	private int toIndex(int x, int y) {
+		if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+			throw new IndexOutOfBoundsException("Tile " + x + ", " + y
+					+ " is outside the " + this.width + " by " + this.height
+					+ " map.");
+		}
+		return y * this.width + x;
+	}
+}
@@ -2,14 +2,14 @@ package objects;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import javax.imageio.ImageIO;
-
 import state.StateManager;
-import toolObjects.MusicPlayer;
+import toolObjects.AssetCache;
+import toolObjects.Camera;
+import toolObjects.Sound;
+import toolObjects.Sprite;
 
 /**
  * A Bullet object represents a weapon a Digger can fire to defend itself.
@@ -21,7 +21,7 @@ public class Bullet {
 	private final int SCALE = 32;
 
 	// Field Variables.
-	private BufferedImage sprite; // The Bullet sprite image.
+	private Sprite sprite; // The Bullet sprite image.
 	private Rectangle2D.Double collisionBox; // The Bullet collision box.
 	private double tilePositionX; // The Bullet's X tile position.
 	private double tilePositionY; // The Bullet's Y tile position.
@@ -34,8 +34,10 @@ public class Bullet {
 	private boolean isFieldSet; // The boolean value indicating if the Bullet
 								// has had its field set.
 
-	private HashMap<String, BufferedImage> bulletMap; // Bullet Images.
-	private MusicPlayer bulletSound; // Bullet sound.
+	private HashMap<String, Sprite> bulletMap; // Bullet Images.
+	private Sound bulletSound; // Bullet sound.
+	private int[] overlapX; // The x coordinates of the overlapped tiles.
+	private int[] overlapY; // The y coordinates of the overlapped tiles.
 
 	/**
 	 * A bullet fired by the player. Constantly checks for collision with the
@@ -63,10 +65,14 @@ public class Bullet {
 		// Initialize collision and fieldSet booleans to false.
 		this.hasCollided = false;
 		this.isFieldSet = false;
+
+		// Set the overlapped tile buffers.
+		this.overlapX = new int[Level.MAX_TILE_OVERLAP];
+		this.overlapY = new int[Level.MAX_TILE_OVERLAP];
 		
-		this.bulletSound = new MusicPlayer("/music/bulletFX.mp3");
+		this.bulletSound = AssetCache.getSound("/music/bulletFX.mp3");
 		
-		this.bulletMap = new HashMap<String, BufferedImage>();
+		this.bulletMap = new HashMap<String, Sprite>();
 		populateBulletMap();
 
 		// Get sprite image.
@@ -83,29 +89,25 @@ public class Bullet {
 	 *
 	 */
 	public void populateBulletMap() {
-		try {
-			this.bulletMap.put("right", ImageIO.read(getClass().getResourceAsStream("/bullet/bulletRight.png")));
-			this.bulletMap.put("left", ImageIO.read(getClass().getResourceAsStream("/bullet/bulletLeft.png")));
-			this.bulletMap.put("up", ImageIO.read(getClass().getResourceAsStream("/bullet/bulletUp.png")));
-			this.bulletMap.put("down", ImageIO.read(getClass().getResourceAsStream("/bullet/bulletDown.png")));
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.out.println("Error: A file was not found.");
-		}
-		
+		this.bulletMap.put("right", AssetCache.getSprite("/bullet/bulletRight.png"));
+		this.bulletMap.put("left", AssetCache.getSprite("/bullet/bulletLeft.png"));
+		this.bulletMap.put("up", AssetCache.getSprite("/bullet/bulletUp.png"));
+		this.bulletMap.put("down", AssetCache.getSprite("/bullet/bulletDown.png"));
 	}
 
 	/**
-	 * Draws the Bullet onto the given Graphics2D object.
+	 * Advances the Bullet one tile along its trajectory and checks if it has
+	 * collided.
 	 * 
-	 * @param g2
-	 *            the given Graphics2D object.
 	 */
-	public void draw(Graphics2D g2) {
+	public void update() {
 		// If this is the first run, set the field.
 		if (!(this.isFieldSet)) {
 			setField();
 			this.setIsFieldSet(true);
+
+			// Play the sound once per shot.
+			this.bulletSound.play();
 		}
 
 		// Logging.
@@ -142,17 +144,6 @@ public class Bullet {
 
 		// Check if it has collided with a non-clear block or enemy.
 		collide();
-		
-		this.bulletSound.play();
-
-		// Draw.
-		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
-				* this.SCALE);
-
-		g2.drawImage(this.sprite, 0, 0, null);
-
-		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
-				* this.SCALE);
 
 		// Update collisionBox.
 		this.collisionBox.setRect(this.tilePositionX * this.SCALE,
@@ -163,6 +154,35 @@ public class Bullet {
 		
 	}
 
+	/**
+	 * Draws the Bullet onto the given Graphics2D object.
+	 * 
+	 * @param g2
+	 *            the given Graphics2D object.
+	 * @param camera
+	 *            the Camera the map is drawn from.
+	 */
+	public void draw(Graphics2D g2, Camera camera) {
+		// If the Bullet has not been fired yet, do not draw.
+		if (!(this.isFieldSet)) {
+			return;
+		}
+
+		// If the Bullet is outside the Camera's view, do not draw.
+		if (!camera.isVisible(this.tilePositionX * this.SCALE,
+				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE)) {
+			return;
+		}
+
+		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
+				* this.SCALE);
+
+		this.sprite.draw(g2, 0, 0);
+
+		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
+				* this.SCALE);
+	}
+
 	/**
 	 * Sets the fields of the bullet when called. Can be called only once.
 	 * 
@@ -194,11 +214,6 @@ public class Bullet {
 	 * 
 	 */
 	public void collide() {
-		// Get the collision boxes of the Barriers and regular blocks.
-		ArrayList<Rectangle2D.Double> collisionBoxes = new ArrayList<Rectangle2D.Double>();
-		collisionBoxes.addAll(this.level.getBarrierCollisonBoxes());
-		collisionBoxes.addAll(this.level.getRegularCollisionBoxes());
-
 		// Get the enemies array list.
 		ArrayList<Enemy> enemies = this.stateManager.getEnemies();
 
@@ -212,9 +227,17 @@ public class Bullet {
 			}
 		}
 
-		// Loop through the blocks and check if collision occurs.
-		for (int k = 0; k < collisionBoxes.size(); k++) {
-			if (this.collisionBox.intersects(collisionBoxes.get(k))) {
+		// Gets the tiles the Bullet overlaps.
+		int count = this.level.getOverlappingTiles(this.collisionBox,
+				this.overlapX, this.overlapY);
+
+		// Loop through the tiles and check if collision occurs with a barrier
+		// or regular block.
+		for (int k = 0; k < count; k++) {
+			if (this.level.isBarrierCollisionTile(this.overlapX[k],
+					this.overlapY[k])
+					|| this.level.isRegularCollisionTile(this.overlapX[k],
+							this.overlapY[k])) {
 				// System.out.println("Hit Block");
 				this.hasCollided = true;
 			}
@@ -2,13 +2,11 @@ package objects;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.util.ArrayList;
 
-import javax.imageio.ImageIO;
-
-import toolObjects.MusicPlayer;
+import toolObjects.AssetCache;
+import toolObjects.Sound;
+import toolObjects.Sprite;
 
 /**
  * A Digger Player object that can move through Dirt blocks, pick up Emerald
@@ -32,7 +30,7 @@ public class Digger {
 	// Variables
 	private double tilePositionX; // Digger's tile position in the X plane.
 	private double tilePositionY; // Digger's tile position in the Y plane.
-	private BufferedImage sprite; // Digger's player image.
+	private Sprite sprite; // Digger's player image.
 	private Level level; // The current map.
 	private int score; // The player's score.
 	private int life; // The player's remaining lives.
@@ -41,7 +39,9 @@ public class Digger {
 	private String direction; // Indicates the direction the player was last
 								// moving.
 	private int delayCounter; // The movement delay.
-	private MusicPlayer pointGain; // Pointgain sound.
+	private Sound pointGain; // Pointgain sound.
+	private int[] overlapX; // The x coordinates of the overlapped tiles.
+	private int[] overlapY; // The y coordinates of the overlapped tiles.
 
 	/**
 	 * Constructs a Digger object to represent the player.
@@ -68,18 +68,15 @@ public class Digger {
 		// Set initial direction and delayCounter.
 		this.direction = "right";
 		this.delayCounter = 0;
+
+		// Set the overlapped tile buffers.
+		this.overlapX = new int[Level.MAX_TILE_OVERLAP];
+		this.overlapY = new int[Level.MAX_TILE_OVERLAP];
 		
-		this.pointGain = new MusicPlayer(
-				"/music/pointsGainSound.mp3");
+		this.pointGain = AssetCache.getSound("/music/pointsGainSound.mp3");
 
 		// Assign the player's image.
-		try {
-			this.sprite = ImageIO.read(getClass().getResourceAsStream("/digger/digger.png"));
-		} catch (IOException e) {
-			System.out.println("Error: File not found.");
-			e.printStackTrace();
-			System.exit(0);
-		}
+		this.sprite = AssetCache.getSprite("/digger/digger.png");
 	}
 
 	/**
@@ -92,7 +89,7 @@ public class Digger {
 		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
 				* this.SCALE);
 
-		g2.drawImage(this.sprite, 0, 0, null);
+		this.sprite.draw(g2, 0, 0);
 
 		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
 				* this.SCALE);
@@ -120,7 +117,6 @@ public class Digger {
 		double oldX = this.tilePositionX;
 		double oldY = this.tilePositionY;
 		this.direction = direction;
-		int[][] map = this.level.getMap();
 
 		// Move the player accordingly.
 		if (direction.equals("left")) {
@@ -141,17 +137,14 @@ public class Digger {
 				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE);
 
 		// Checks if it is colliding with regular or Gold tiles.
-		collideWithOthers(map);
-		collideWithGold(map, oldX, oldY);
+		collideWithOthers();
+		collideWithGold(oldX, oldY);
 
 		// Checks if it is colliding with the barrier.
 		if (collideWithBarrier()) {
 			this.tilePositionX = oldX;
 			this.tilePositionY = oldY;
 		}
-
-		// Generates a new regualrCollisionBoxes array list.
-		this.level.generateRegularCollisionBoxes();
 	}
 
 	/**
@@ -226,14 +219,15 @@ public class Digger {
 	 * @return true if colliding with barrier false if not.
 	 */
 	public boolean collideWithBarrier() {
-		// Gets the barrierCollisionBoxes array list from the level.
-		ArrayList<Rectangle2D.Double> barrierCollisonBoxes = this.level
-				.getBarrierCollisonBoxes();
-
-		// Loop through and check if the Digger is colliding with a
-		// barrierCollisonBox.
-		for (int i = 0; i < barrierCollisonBoxes.size(); i++) {
-			if (this.collisionBox.intersects(barrierCollisonBoxes.get(i))) {
+		// Gets the tiles the Digger overlaps.
+		int count = this.level.getOverlappingTiles(this.collisionBox,
+				this.overlapX, this.overlapY);
+
+		// Loop through and check if the Digger is colliding with a barrier
+		// tile.
+		for (int i = 0; i < count; i++) {
+			if (this.level.isBarrierCollisionTile(this.overlapX[i],
+					this.overlapY[i])) {
 				return true;
 			}
 		}
@@ -245,30 +239,26 @@ public class Digger {
 	 * Checks if the Digger is colliding with non-barrier blocks. If it can dig
 	 * through, Digger will move through.
 	 * 
-	 * @param map
-	 *            the level tileID map.
 	 */
-	public void collideWithOthers(int[][] map) {
+	public void collideWithOthers() {
 		// Constants.
 		final int DIRT = this.level.DIRT;
 		final int EMERALD = this.level.EMERALD;
 		final int CLEAR = this.level.CLEAR;
 
-		// Gets the regularCollisionBoxes from the array list from the level.
-		ArrayList<Rectangle2D.Double> regularCollisionBoxes = this.level
-				.getRegularCollisionBoxes();
+		// Gets the tiles the Digger overlaps.
+		int count = this.level.getOverlappingTiles(this.collisionBox,
+				this.overlapX, this.overlapY);
 
 		// Loop through and do specific actions depending on the tile block.
-		for (int i = 0; i < regularCollisionBoxes.size(); i++) {
-			if (this.collisionBox.intersects(regularCollisionBoxes.get(i))) {
-				int column = (int) regularCollisionBoxes.get(i).getX()
-						/ this.SCALE;
-				int row = (int) regularCollisionBoxes.get(i).getY()
-						/ this.SCALE;
-				if (map[column][row] == DIRT) {
+		for (int i = 0; i < count; i++) {
+			int column = this.overlapX[i];
+			int row = this.overlapY[i];
+			if (this.level.isRegularCollisionTile(column, row)) {
+				if (this.level.getTile(column, row) == DIRT) {
 					this.level.updateTile(column, row, CLEAR);
 				}
-				if (map[column][row] == EMERALD) {
+				if (this.level.getTile(column, row) == EMERALD) {
 					this.level.updateTile(column, row, CLEAR);
 					this.score = this.score + this.EMERALD_POINT;
 					this.pointGain.play();
@@ -277,7 +267,7 @@ public class Digger {
 				// if (map[column][row] == this.GOLD) {
 				// this.die();
 				// }
-				if (map[column][row] == this.TREASURE) {
+				if (this.level.getTile(column, row) == this.TREASURE) {
 					this.level.updateTile(column, row, CLEAR);
 					this.score = this.score + this.TREASURE_POINT;
 					// System.out.println(this.score);
@@ -310,14 +300,12 @@ public class Digger {
 	/**
 	 * Checks if it is colliding with the gold object.
 	 * 
-	 * @param map
-	 *            the map data.
 	 * @param oldX
 	 *            the old x position the Digger was at.
 	 * @param oldY
 	 *            the old y position the Digger was at.
 	 */
-	public void collideWithGold(int[][] map, double oldX, double oldY) {
+	public void collideWithGold(double oldX, double oldY) {
 		// Constants.
 		final int CLEAR = this.level.CLEAR;
 
@@ -2,15 +2,14 @@ package objects;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
-import javax.imageio.ImageIO;
-
+import toolObjects.AssetCache;
+import toolObjects.Camera;
 import toolObjects.Coordinate;
-import toolObjects.MusicPlayer;
-import toolObjects.Node;
+import toolObjects.Sound;
+import toolObjects.Sprite;
 
 /**
  * An abstract class the constructs an Enemy object that follows the player.
@@ -21,6 +20,8 @@ public abstract class Enemy {
 	private final int STARTING_X = 18; // The enemy's starting X position.
 	private final int STARTING_Y = 18; // The enemy's starting Y position.
 	protected final int SCALE = 32; // The enemy's pixel scale.
+	private final int MOVE_THRESHOLD = 15; // The delayCounter value the Enemy
+											// moves after.
 
 	protected int tilePositionX; // The enemy's current tile position in the X
 									// direction.
@@ -30,17 +31,19 @@ public abstract class Enemy {
 									// direction.
 	private int playerPositionY; // The player's current tile position in the Y
 									// direction.
+	private int plannedPositionX; // The player's X tile position when the
+									// path was last planned.
+	private int plannedPositionY; // The player's Y tile position when the
+									// path was last planned.
 
-	protected BufferedImage sprite; // The enemy's image.
+	protected Sprite sprite; // The enemy's image.
 	protected Level level; // The level the enemy is on.
 	private Digger player; // The target player to follow.
-	protected int[][] map; // The map data from the enemy level.
-	protected Node[][] nodeMap; // A node version of the map.
+	protected FlowField flowField; // The level's flow field for the Enemy.
+	protected PathWorkspace workspace; // The tile indices of the flow field.
 
-	protected ArrayList<Node> open; // The arraylist of Nodes to check.
-	protected ArrayList<Node> close; // The arraylist of Nodes already checked.
-	protected ArrayList<Coordinate> path; // A coordinate arraylist of the path
-											// direction.
+	protected int[] path; // The tile indices of the path direction.
+	protected int pathLength; // The number of tile indices in the path.
 	private boolean pauseStatus; // The pause status of the enemy.
 	protected Rectangle2D.Double collisionBox; // The collision box of the
 												// enemy.
@@ -48,7 +51,9 @@ public abstract class Enemy {
 												// player is hit.
 	private int delayCounter; // The movement delay of the Enemy.
 	private int waitTime; // The spawning wait time of the Enemy.
-	private MusicPlayer enemyDeath; // Enemy Death sound.
+	private Sound enemyDeath; // Enemy Death sound.
+	protected int[] overlapX; // The x coordinates of the overlapped tiles.
+	protected int[] overlapY; // The y coordinates of the overlapped tiles.
 
 	/**
 	 * Constructs an Enemy with a specified level and target player.
@@ -59,13 +64,7 @@ public abstract class Enemy {
 	 *            the target player.
 	 */
 	public Enemy(Level level, Digger player) {
-		try {
-			this.sprite = ImageIO.read(getClass().getResourceAsStream("/enemy/nobbin.png"));
-		} catch (IOException e) {
-			System.out.println("Error: File not found.");
-			e.printStackTrace();
-			System.exit(0);
-		}
+		this.sprite = AssetCache.getSprite("/enemy/nobbin.png");
 
 		// Set initial pauseStatus.
 		this.pauseStatus = false;
@@ -73,15 +72,8 @@ public abstract class Enemy {
 		// Obtains the player, the tracking object.
 		this.player = player;
 		this.level = level;
-		if (this.level != null) {
-			this.map = this.level.getMap();
-		}
 
-		// List of Nodes that needs to be checked or has been checked.
-		this.open = new ArrayList<Node>();
-		this.close = new ArrayList<Node>();
-		
-		this.enemyDeath = new MusicPlayer("/music/enemyDeathSound.mp3");
+		this.enemyDeath = AssetCache.getSound("/music/enemyDeathSound.mp3");
 
 
 		// Initial conditions of the enemy.
@@ -92,29 +84,32 @@ public abstract class Enemy {
 				this.SCALE);
 		this.delayCounter = 0;
 		this.waitTime = 0;
+		this.overlapX = new int[Level.MAX_TILE_OVERLAP];
+		this.overlapY = new int[Level.MAX_TILE_OVERLAP];
 
 		// Set in another code. -1 is a temp value.
-		this.map = null;
 		this.playerPositionX = -1;
 		this.playerPositionY = -1;
-		// Creates the Path array list of coordinates to keep track of where to
-		// go.
-		this.path = new ArrayList<Coordinate>();
+		this.plannedPositionX = -1;
+		this.plannedPositionY = -1;
+		// The path buffer grows as longer paths are followed.
+		this.path = new int[16];
+		this.pathLength = 0;
 	}
 
 	/**
-	 * Draws the enemy as it moves on a specified Graphics2D object.
+	 * Updates the Enemy. Counts down its spawning wait time, and otherwise
+	 * moves it on its path. The path is found by the LevelState's
+	 * EnemyScheduler.
 	 * 
-	 * @param g2
-	 *            the specified Graphics2D object to be drawn on.
 	 */
-	public void draw(Graphics2D g2) {
-		// If the level is null, do not draw.
+	public void update() {
+		// If the level is null, do not update.
 		if (this.level == null) {
 			return;
 		}
 
-		// If the Enemy has a waitTime, do not draw.
+		// If the Enemy has a waitTime, do not move.
 		if (this.waitTime != 0) {
 			this.waitTime--;
 			return;
@@ -122,214 +117,149 @@ public abstract class Enemy {
 
 		// Move the Enemy on the path.
 		move();
+	}
+
+	/**
+	 * Draws the enemy on a specified Graphics2D object.
+	 * 
+	 * @param g2
+	 *            the specified Graphics2D object to be drawn on.
+	 * @param camera
+	 *            the Camera the map is drawn from.
+	 */
+	public void draw(Graphics2D g2, Camera camera) {
+		// If the level is null or the Enemy has a waitTime, do not draw.
+		if (this.level == null || this.waitTime != 0) {
+			return;
+		}
+
+		// If the Enemy is outside the Camera's view, do not draw.
+		if (!camera.isVisible(this.tilePositionX * this.SCALE,
+				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE)) {
+			return;
+		}
 
 		// Draw the Enemy.
 		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
 				* this.SCALE);
 
-		g2.drawImage(this.sprite, 0, 0, null);
+		this.sprite.draw(g2, 0, 0);
 
 		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
 				* this.SCALE);
+	}
 
-		// Find path.
-		run();
+	/**
+	 * Returns the terrain class the Enemy moves through. Nobbins only move
+	 * through clear and treasure tiles.
+	 * 
+	 * @return the terrain class of the Enemy.
+	 */
+	protected int getTerrain() {
+		return Level.NOBBIN_TERRAIN;
 	}
 
 	/**
-	 * Calculate each tiles Manhattan Distance.
+	 * Prepares a search on the level. Obtains the map, the level's flow field
+	 * for the Enemy's terrain class and the player's position.
 	 * 
 	 */
-	public void calculateHeuristic() {
-		this.map = this.level.getMap(); // Gets the map data as it is modified
-										// by the player.
-		this.nodeMap = new Node[this.map.length][this.map[0].length]; // 0 is an
-																		// arbitrary
-																		// row
-																		// to
-																		// get
-																		// column
-																		// length.
+	public void prepareSearch() {
+		this.flowField = this.level.getFlowField(getTerrain());
+		this.workspace = this.flowField.getWorkspace();
 
 		// Obtains the player's position.
 		this.playerPositionX = (int) Math.round(this.player.getPositionX());
 		this.playerPositionY = (int) Math.round(this.player.getPositionY());
-
-		// Variable
-		Node rcNode;
-
-		// Loop through the map and calculate the Heuristic values and generate
-		// a node for the corresponding nodeMap.
-		for (int r = 0; r < this.map.length; r++) {
-			for (int c = 0; c < this.map[r].length; c++) {
-				Coordinate rcCoordinate = new Coordinate(r, c);
-				int heuristic = Math.abs(this.tilePositionX
-						- this.playerPositionX)
-						+ Math.abs(this.tilePositionY - this.playerPositionY);
-				rcNode = new Node(rcCoordinate, heuristic);
-				this.nodeMap[r][c] = rcNode;
-			}
-		}
 	}
 
 	/**
-	 * Calculates the cost and moveCost of each tile surrounding the specified
-	 * current Node.
-	 * 
-	 * @param nodeCurrent
-	 *            the specified current Node.
+	 * Calculates the shortest path to the player. The level's flow field is
+	 * shared with every other Enemy of the same terrain class, and is only
+	 * searched as far as the Enemy's tile.
 	 * 
 	 */
-	public void calculateCost(Node nodeCurrent) {
-		// Obtains the current cost of the current Node and its X and Y
-		// coordinates.
-		int currentPositionX = nodeCurrent.getCoordinate().getX();
-		int currentPositionY = nodeCurrent.getCoordinate().getY();
-		
-		// Obtains the tile ID on the map.		
-		if (currentPositionY - 1 == -1) {
-			return;
-		}
-		int mapLeft = this.map[currentPositionX - 1][currentPositionY];
-		int mapRight = this.map[currentPositionX + 1][currentPositionY];
-		int mapUp = this.map[currentPositionX][currentPositionY - 1];
-		int mapDown = this.map[currentPositionX][currentPositionY + 1];
-
-		// Optains the Node data on the nodeMap.
-		Node nodeLeft = this.nodeMap[currentPositionX - 1][currentPositionY];
-		Node nodeRight = this.nodeMap[currentPositionX + 1][currentPositionY];
-		Node nodeUp = this.nodeMap[currentPositionX][currentPositionY - 1];
-		Node nodeDown = this.nodeMap[currentPositionX][currentPositionY + 1];
-
-		// Checks that the map is CLEAR and is not already on the checked Node
-		// list.
-		// If not, link the specified Node to the nodeCurrent and add it to the
-		// open list.
-		canMoveTo(nodeCurrent, mapLeft, nodeLeft);
-		canMoveTo(nodeCurrent, mapRight, nodeRight);
-		canMoveTo(nodeCurrent, mapUp, nodeUp);
-		canMoveTo(nodeCurrent, mapDown, nodeDown);
-
-		// Double checks if the the current Node is in the close list before
-		// adding it.
-		if (!this.close.contains(nodeCurrent)) {
-			this.close.add(nodeCurrent);
-		}
+	public void calculateShortest() {
+		// Make sure the flow field leads to the player.
+		this.flowField.update(this.playerPositionX, this.playerPositionY);
+		settleFlowField();
+		followFlowField();
 	}
 
 	/**
-	 * Checks if the given Node is moveable. If so, it adjusts the appropriate
-	 * fields and adds it to the open Node array list.
+	 * Settles the flow field at the Enemy's tile, so that following it finds
+	 * the shortest path. The flow field must already be rooted at the
+	 * player's position found by prepareSearch.
 	 * 
-	 * @param nodeCurrent
-	 *            the current Node to point back to.
-	 * @param mapPosition
-	 *            the position within the map 2D array.
-	 * @param nodePosition
-	 *            the Node to check.
 	 */
-	protected void canMoveTo(Node nodeCurrent, int mapPosition,
-			Node nodePosition) {
-		// Constants.
-		final int CLEAR = this.level.CLEAR;
-		final int TREASURE = this.level.TREASURE;
-
-		// Checks if the Enemy can move to the position.
-		if ((mapPosition == CLEAR || mapPosition == TREASURE)
-				&& !this.close.contains(nodePosition)) {
-			if (nodePosition.getNext() == null) {
-				nodePosition.setNext(nodeCurrent);
-				this.open.add(nodePosition);
-			}
-		}
+	public void settleFlowField() {
+		this.flowField.settle(this.tilePositionX, this.tilePositionY);
 	}
 
 	/**
-	 * Calculates the shortest path to the player using Bread-First Search path
-	 * finding algorithm
-	 * 
-	 * @param nodeCurrent
-	 *            the current node to check.
+	 * Sets the path to the player by following the flow field from the Enemy's
+	 * tile. The flow field must already lead to the player's position found
+	 * by prepareSearch. The flow field is only read, so Enemies sharing it
+	 * can follow it at the same time.
 	 * 
 	 */
-	public void calculateShortest(Node nodeCurrent) {
-		// System.out.println("calculating");
-
-		// Calculate the maps Heuristic.
-		calculateHeuristic();
-
-		// Clear the open and closed list before running main loop.
-		this.open.clear();
-		this.close.clear();
-
-		// Add the given done to the open list. Mainly done so that the main
-		// loop can operate.
-		this.open.add(nodeCurrent);
-
-		while (true) {
-			// Removes the starting node from the open list and set nodeCurrent
-			// to the removed node.
-			nodeCurrent = this.open.remove(0);
-
-			// Calculate the cost of the adjecent tiles.
-			calculateCost(nodeCurrent);
-
-			// Remove the current Node.
-			this.open.remove(nodeCurrent);
-
-			// Logging.
-			// System.out.println("Destination: " + "[" + this.playerPositionX
-			// + "][" + this.playerPositionY + "]");
-			// System.out.println("Current: " + nodeCurrent.toString());
-			// System.out.println(this.open.toString());
-			// System.out.println(this.close.toString());
-
-			// If the current Node is the where the player is, end the main loop
-			// and process movement.
-			if (nodeCurrent.getCoordinate().getX() == this.playerPositionX
-					&& nodeCurrent.getCoordinate().getY() == this.playerPositionY) {
-				setPath(nodeCurrent);
-				break;
-			}
+	public void followFlowField() {
+		// Remember the player's position the path leads to.
+		this.plannedPositionX = this.playerPositionX;
+		this.plannedPositionY = this.playerPositionY;
+
+		// If the Enemy is on the player, the path is its own tile.
+		if (this.flowField.getDistance(this.tilePositionX, this.tilePositionY) == 0) {
+			setPath(PathWorkspace.NO_PARENT);
+			return;
+		}
 
-			// If the open list is empty, break the loop.
-			if (this.open.isEmpty()) {
-				break;
-			}
+		// If the player cannot be reached, keep the current path.
+		int next = this.flowField.getNextStep(this.tilePositionX,
+				this.tilePositionY);
+		if (next == FlowField.UNREACHABLE) {
+			return;
 		}
+		setPath(next);
 	}
 
 	/**
 	 * Sets the path to the player.
 	 * 
-	 * @param nodeCurrent
-	 *            the starting node of the path.
+	 * @param next
+	 *            the index of the first tile to move to, or
+	 *            PathWorkspace.NO_PARENT if the Enemy is on the player.
 	 * 
 	 */
-	public void setPath(Node nodeCurrent) {
+	public void setPath(int next) {
 		// If pauseStatus is true, do not setPath.
 		if (this.pauseStatus) {
 			return;
 		}
 
-		// Set the current Node to the specified Node.
-		Node current = nodeCurrent;
-
-		// Clear the path array list.
-		this.path.clear();
-
-		// Loop through and add coordinates to the path.
-		while (true) {
-			if (current.getNext() == null) {
-				break;
+		// Add current position to the path.
+		this.pathLength = 0;
+		this.path[this.pathLength] = this.workspace.toIndex(
+				this.tilePositionX, this.tilePositionY);
+		this.pathLength++;
+
+		// Follow the flow field links and add tiles to the path.
+		int current = next;
+		while (current != PathWorkspace.NO_PARENT) {
+			if (this.pathLength == this.path.length) {
+				this.path = Arrays.copyOf(this.path, this.path.length * 2);
 			}
-
-			this.path.add(current.getCoordinate());
-			current = current.getNext();
+			this.path[this.pathLength] = current;
+			this.pathLength++;
+			current = this.workspace.getParent(current);
 		}
 
-		// Add current position to the path.
-		this.path.add(new Coordinate(this.tilePositionX, this.tilePositionY));
+		// Reverse the path so that it ends at the current position.
+		for (int i = 0, j = this.pathLength - 1; i < j; i++, j--) {
+			int swap = this.path[i];
+			this.path[i] = this.path[j];
+			this.path[j] = swap;
+		}
 	}
 
 	/**
@@ -337,12 +267,9 @@ public abstract class Enemy {
 	 * 
 	 */
 	public void move() {
-		// Constants.
-		final int THRESHOLD = 15;
-
 		// Do not move if certain conditions are met.
-		if (this.path.size() == 0 || this.pauseStatus
-				|| this.delayCounter <= THRESHOLD) {
+		if (this.pathLength == 0 || this.pauseStatus
+				|| this.delayCounter <= this.MOVE_THRESHOLD) {
 			return;
 		}
 
@@ -353,13 +280,13 @@ public abstract class Enemy {
 		int positionInPath = -1;
 
 		// Find the appropriate positonInPath of the Enemy.
-		for (int i = this.path.size() - 1; i >= 0; i--) {
-			if (this.path.get(i).getX() == this.tilePositionX
-					&& this.path.get(i).getY() == this.tilePositionY) {
+		for (int i = this.pathLength - 1; i >= 0; i--) {
+			if (this.workspace.toX(this.path[i]) == this.tilePositionX
+					&& this.workspace.toY(this.path[i]) == this.tilePositionY) {
 				positionInPath = i;
 				break;
 			}
-			this.path.remove(i);
+			this.pathLength--;
 		}
 
 		// If it cannot find its position or its position is 0 (at the end of
@@ -369,22 +296,22 @@ public abstract class Enemy {
 		}
 		
 		// Last position is the closest coordinate to the player.
-		Coordinate moveTo = this.path.get(positionInPath - 1);
+		int moveTo = this.path[positionInPath - 1];
 
 		// Store the old position of the Enemy.
 		int oldX = this.tilePositionX;
 		int oldY = this.tilePositionY;
 
 		// Alter the Enemy's tile position.
-		this.tilePositionX = moveTo.getX();
-		this.tilePositionY = moveTo.getY();
+		this.tilePositionX = this.workspace.toX(moveTo);
+		this.tilePositionY = this.workspace.toY(moveTo);
 
 		// Update the collisionBox.
 		this.collisionBox.setRect(this.tilePositionX * this.SCALE,
 				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE);
 
 		// Check collision.
-		collideWithOthers(this.map);
+		collideWithOthers();
 		collideWithGold(oldX, oldY);
 	}
 
@@ -396,20 +323,16 @@ public abstract class Enemy {
 	 */
 	public void setLevel(Level level) {
 		this.level = level;
-		this.path.clear();
+		this.pathLength = 0;
 
-		// If the level is null, reset the Enemy's position, clear both open and
-		// closed array list, and set the map to null.
+		// If the level is null, reset the Enemy's position.
 		if (this.level == null) {
 			resetPosition();
-			this.open.clear();
-			this.close.clear();
-			this.map = null;
 			return;
 		}
 
-		// Calculate the Heuristic of the map.
-		calculateHeuristic();
+		// Prepare the search on the map.
+		prepareSearch();
 	}
 
 	/**
@@ -438,13 +361,32 @@ public abstract class Enemy {
 			return;
 		}
 
-		Node nodeCurrent = this.nodeMap[this.tilePositionX][this.tilePositionY];
-		calculateShortest(nodeCurrent);
+		prepareSearch();
+		calculateShortest();
 	}
 
 	/**
-	 * Resets the position of the Enemy to its starting position. Clears path,
-	 * open, and close array list.
+	 * Returns whether the Enemy needs a new path. A path is needed when the
+	 * Enemy has none, is about to move on the next frame, or the player has
+	 * moved to another tile since the path was planned.
+	 * 
+	 * @return true if the Enemy needs a new path, false if not.
+	 */
+	public boolean needsPath() {
+		if (this.level == null || this.pauseStatus || this.waitTime != 0) {
+			return false;
+		}
+		return this.pathLength == 0
+				|| this.delayCounter >= this.MOVE_THRESHOLD
+				|| this.plannedPositionX != (int) Math.round(this.player
+						.getPositionX())
+				|| this.plannedPositionY != (int) Math.round(this.player
+						.getPositionY());
+	}
+
+	/**
+	 * Resets the position of the Enemy to its starting position and clears the
+	 * path. The search workspace is reset by the next search.
 	 * 
 	 */
 	public void resetPosition() {
@@ -456,10 +398,8 @@ public abstract class Enemy {
 		this.collisionBox.setRect(this.tilePositionX * this.SCALE,
 				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE);
 
-		// Clear array lists.
-		this.path.clear();
-		this.open.clear();
-		this.close.clear();
+		// Clear path.
+		this.pathLength = 0;
 	}
 
 	/**
@@ -474,6 +414,36 @@ public abstract class Enemy {
 		return false;
 	}
 
+	/**
+	 * Returns the level's flow field for the Enemy's terrain class, as found
+	 * by the last prepareSearch.
+	 * 
+	 * @return the flow field, or null if no search was prepared.
+	 */
+	public FlowField getFlowField() {
+		return this.flowField;
+	}
+
+	/**
+	 * Returns the player's tile position in the X direction, as found by the
+	 * last prepareSearch.
+	 * 
+	 * @return the player's x tile position.
+	 */
+	public int getPlayerPositionX() {
+		return this.playerPositionX;
+	}
+
+	/**
+	 * Returns the player's tile position in the Y direction, as found by the
+	 * last prepareSearch.
+	 * 
+	 * @return the player's y tile position.
+	 */
+	public int getPlayerPositionY() {
+		return this.playerPositionY;
+	}
+
 	/**
 	 * Returns the level data of the enemy.
 	 * 
@@ -535,28 +505,23 @@ public abstract class Enemy {
 	 * Checks if the Enemy is colliding with non-barrier blocks. If it can dig
 	 * through, the Enemy will move through.
 	 * 
-	 * @param map
-	 *            the level tileID map.
 	 */
-	public void collideWithOthers(int[][] map) {
+	public void collideWithOthers() {
 		// Constants.
 		final int TREASURE = this.level.TREASURE;
 		final int CLEAR = this.level.CLEAR;
 
-		// Get the regularCollisionBoxes from the level.
-		ArrayList<Rectangle2D.Double> regularCollisionBoxes = this.level
-				.getRegularCollisionBoxes();
+		// Gets the tiles the Enemy overlaps.
+		int count = this.level.getOverlappingTiles(this.collisionBox,
+				this.overlapX, this.overlapY);
 
 		// Check if the Enemy collides with Treasure tiles.
-		for (int i = 0; i < regularCollisionBoxes.size(); i++) {
-			if (this.collisionBox.intersects(regularCollisionBoxes.get(i))) {
-				int column = (int) regularCollisionBoxes.get(i).getX()
-						/ this.SCALE;
-				int row = (int) regularCollisionBoxes.get(i).getY()
-						/ this.SCALE;
-				if (map[column][row] == TREASURE) {
-					this.level.updateTile(column, row, CLEAR);
-				}
+		for (int i = 0; i < count; i++) {
+			int column = this.overlapX[i];
+			int row = this.overlapY[i];
+			if (this.level.isRegularCollisionTile(column, row)
+					&& this.level.getTile(column, row) == TREASURE) {
+				this.level.updateTile(column, row, CLEAR);
 			}
 		}
 	}
@@ -0,0 +1,645 @@
+package objects;
+
+import toolObjects.IntQueue;
+import toolObjects.PagedIntArray;
+
+/**
+ * A distance field toward the player shared by every Enemy of one terrain
+ * class on a Level. The field is a tree of shortest paths rooted at the
+ * player's tile: each reached tile is linked to the neighbor one step closer,
+ * so an Enemy finds its shortest path by following the links from its own
+ * tile.
+ *
+ * The field is kept up to date incrementally with Lifelong Planning A*
+ * (LPA*) without a heuristic, the way D* Lite keeps its search. Besides its
+ * distance, each tile has a lookahead: one more than the distance of its
+ * closest neighbor, or 0 for the root. A tile whose distance and lookahead
+ * differ is inconsistent and waits in a queue ordered by the smaller of the
+ * two. A tile that becomes passable or impassable, such as dirt dug out by
+ * the Digger or a tile filled by gold, gets a new lookahead, so a change to
+ * the map only makes the tiles it touches inconsistent.
+ *
+ * Settling a tile then processes the queue in order of distance until the
+ * tile is consistent and nothing closer waits: a tile whose lookahead dropped
+ * is lowered to it and lowers its neighbors, and a tile whose lookahead rose
+ * is raised and its linked neighbors look for a new closest neighbor. Only
+ * the tiles closer than the Enemies that ask are ever processed, and the
+ * rest stay queued for later, so a changing map never makes the whole field
+ * be searched again.
+ *
+ * A moving player is not repaired incrementally. Every distance is measured
+ * to the player's tile, so a step changes nearly all of them, and repairing
+ * them costs more than searching again. Whenever the player's tile changes,
+ * the field is cleared and starts over from the new tile with only the root
+ * queued. The new search is again settled only as far as the Enemies ask.
+ *
+ * The per-tile state is kept in paged arrays, so a field only takes memory
+ * for the tiles its searches reach. A field can be given a farthest distance
+ * to search, which bounds that memory on a large map: tiles farther from the
+ * target are never processed and count as unreached.
+ */
+public class FlowField implements TileChangeListener {
+	// Constants.
+	public static final int UNREACHABLE = -1; // The distance of unreached tiles.
+	private static final int INFINITE = Integer.MAX_VALUE; // The distance and
+															// lookahead of
+															// unreached tiles.
+	private static final int NOT_QUEUED = -1; // The key of unqueued tiles.
+
+	// Field Variables.
+	private Level level; // The level the field is on.
+	private int terrain; // The terrain class the field is searched for.
+	private int columns; // The number of tiles in the X direction.
+	private int rows; // The number of tiles in the Y direction.
+	private PathWorkspace workspace; // The parent links of the field. Only
+										// the tiles it visited are touched.
+	private PagedIntArray distance; // The number of steps from each touched
+									// tile to the target.
+	private PagedIntArray lookahead; // One more than the distance of each
+										// touched tile's closest neighbor.
+	private PagedIntArray queuedKey; // The key each touched tile is queued
+										// at, or NOT_QUEUED.
+	private int maxDistance; // The farthest distance searched.
+	private int allocationLimit; // The most tiles with pages allocated before
+									// a new root frees them.
+	private IntQueue[] buckets; // The queued tiles of each key.
+	private int topKey; // No tile is queued at a lower key.
+	private int lastKey; // No tile is queued at a higher key.
+	private int queuedTiles; // The number of tiles queued.
+	private int queueEntries; // The number of entries in the buckets,
+								// including those of requeued tiles.
+	private int targetX; // The x coordinate of the target tile.
+	private int targetY; // The y coordinate of the target tile.
+	private int root; // The index of the tile the field is rooted at, or
+						// UNREACHABLE if the field is empty.
+	private IntQueue changedTiles; // The tiles whose passability changed
+									// since the last update.
+
+	/**
+	 * Constructs an empty FlowField for the specified terrain class on a
+	 * Level.
+	 *
+	 * @param level
+	 *            the level the field is on.
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @param columns
+	 *            the number of tiles in the X direction.
+	 * @param rows
+	 *            the number of tiles in the Y direction.
+	 * @param maxDistance
+	 *            the farthest distance searched. No path on the map is longer
+	 *            than columns * rows - 1 steps, so that searches everything.
+	 */
+	public FlowField(Level level, int terrain, int columns, int rows,
+			int maxDistance) {
+		this.level = level;
+		this.terrain = terrain;
+		this.columns = columns;
+		this.rows = rows;
+		this.maxDistance = maxDistance;
+		this.workspace = new PathWorkspace(columns, rows);
+		this.distance = new PagedIntArray(columns * rows);
+		this.lookahead = new PagedIntArray(columns * rows);
+		this.queuedKey = new PagedIntArray(columns * rows);
+
+		// A search spans at most 2 * maxDistance + 1 rows, and partly
+		// covers a page at each end.
+		long searchRows = Math.min(rows, 2L * maxDistance + 1);
+		this.allocationLimit = (int) Math.min(Integer.MAX_VALUE, columns
+				* searchRows + 2 * PagedIntArray.PAGE_SIZE);
+		this.buckets = new IntQueue[1 + Math.min(maxDistance,
+				columns + rows)];
+		this.topKey = 0;
+		this.lastKey = -1;
+		this.queuedTiles = 0;
+		this.queueEntries = 0;
+
+		// No target has been searched yet.
+		this.targetX = -1;
+		this.targetY = -1;
+		this.root = UNREACHABLE;
+		this.changedTiles = new IntQueue(columns);
+	}
+
+	@Override
+	public void tileChanged(int x, int y, int oldTileID, int newTileID) {
+		// The changed tiles get their new lookahead on the next update.
+		if (this.level.isPassable(this.terrain, oldTileID) != this.level
+				.isPassable(this.terrain, newTileID)) {
+			this.changedTiles.add(this.workspace.toIndex(x, y));
+		}
+	}
+
+	/**
+	 * Roots the field at the specified target tile. The tiles changed since
+	 * the last update are queued, or the field starts over from the target if
+	 * it moved. The queue is processed as tiles are settled. The field only
+	 * reads the Level's tiles, so fields of different terrain classes can be
+	 * updated at the same time while the Level is not changed.
+	 *
+	 * @param x
+	 *            the x coordinate of the target tile.
+	 * @param y
+	 *            the y coordinate of the target tile.
+	 */
+	public void update(int x, int y) {
+		this.targetX = x;
+		this.targetY = y;
+
+		// A target outside the map or on an impassable tile cannot be reached.
+		if (x < 0 || x >= this.columns || y < 0 || y >= this.rows
+				|| !isPassable(x, y)) {
+			clear();
+			return;
+		}
+
+		// Start from a new root if the target moved. Only the root is queued,
+		// so the search only reaches as far as the Enemies settling it.
+		int target = this.workspace.toIndex(x, y);
+		if (target != this.root) {
+			clear();
+			this.root = target;
+			touch(target);
+			this.lookahead.set(target, 0);
+			enqueue(target);
+			return;
+		}
+
+		while (!this.changedTiles.isEmpty()) {
+			int index = this.changedTiles.remove();
+			if (isPassable(this.workspace.toX(index),
+					this.workspace.toY(index))) {
+				updateLookahead(index);
+			} else {
+				removeTile(index);
+			}
+		}
+	}
+
+	/**
+	 * Removes the impassable tile at the specified index from the field right
+	 * away instead of queueing it, so that no Enemy follows a stale link into
+	 * it. Its linked neighbors look for a new closest neighbor.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void removeTile(int index) {
+		touch(index);
+		this.distance.set(index, INFINITE);
+		updateLookahead(index);
+		int x = this.workspace.toX(index);
+		int y = this.workspace.toY(index);
+		raiseLookahead(index, x - 1, y);
+		raiseLookahead(index, x + 1, y);
+		raiseLookahead(index, x, y - 1);
+		raiseLookahead(index, x, y + 1);
+	}
+
+	/**
+	 * Settles the field at the specified tile, so that the tile's distance is
+	 * exact and its links lead the shortest way to the target. A tile the
+	 * Enemy cannot stand on, such as dirt under a Nobbin, settles its
+	 * neighbors instead.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 */
+	public void settle(int x, int y) {
+		if (isPassable(x, y)) {
+			settle(this.workspace.toIndex(x, y));
+			return;
+		}
+		if (x > 0 && isPassable(x - 1, y)) {
+			settle(this.workspace.toIndex(x - 1, y));
+		}
+		if (x < this.columns - 1 && isPassable(x + 1, y)) {
+			settle(this.workspace.toIndex(x + 1, y));
+		}
+		if (y > 0 && isPassable(x, y - 1)) {
+			settle(this.workspace.toIndex(x, y - 1));
+		}
+		if (y < this.rows - 1 && isPassable(x, y + 1)) {
+			settle(this.workspace.toIndex(x, y + 1));
+		}
+	}
+
+	/**
+	 * Processes the queued tiles in order of their keys until the tile at the
+	 * specified index is consistent and no tile with a lower key waits. Run
+	 * from a single root, this is a Breadth-First Search that stops at the
+	 * tile.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void settle(int index) {
+		while (true) {
+			int key = peekKey();
+			if (key == INFINITE) {
+				return;
+			}
+			if (distanceOf(index) == lookaheadOf(index)
+					&& key >= distanceOf(index)) {
+				return;
+			}
+			int current = this.buckets[key].remove();
+			this.queueEntries--;
+
+			// Skip the entries of tiles queued again at another key.
+			if (this.queuedKey.get(current) != key) {
+				continue;
+			}
+			this.queuedKey.set(current, NOT_QUEUED);
+			this.queuedTiles--;
+			process(current);
+		}
+	}
+
+	/**
+	 * Makes the tile at the specified index consistent. A tile whose
+	 * lookahead is lower takes it as its distance and lowers the lookahead of
+	 * its neighbors. A tile whose lookahead is higher is raised out of the
+	 * field, and it and its linked neighbors look for their closest neighbor
+	 * again.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void process(int index) {
+		int x = this.workspace.toX(index);
+		int y = this.workspace.toY(index);
+		int distance = this.distance.get(index);
+		int lookahead = this.lookahead.get(index);
+		if (distance > lookahead) {
+			// Link the passable neighbors in the left, right, up, down order.
+			this.distance.set(index, lookahead);
+			int shorter = lookahead + 1;
+			lowerLookahead(index, shorter, x - 1, y);
+			lowerLookahead(index, shorter, x + 1, y);
+			lowerLookahead(index, shorter, x, y - 1);
+			lowerLookahead(index, shorter, x, y + 1);
+			return;
+		}
+		if (distance < lookahead) {
+			this.distance.set(index, INFINITE);
+			updateLookahead(index);
+			raiseLookahead(index, x - 1, y);
+			raiseLookahead(index, x + 1, y);
+			raiseLookahead(index, x, y - 1);
+			raiseLookahead(index, x, y + 1);
+		}
+	}
+
+	/**
+	 * Links the tile at the specified coordinates to the current tile if it is
+	 * passable and the current tile gives it a lower lookahead, and queues it.
+	 *
+	 * @param current
+	 *            the index of the current tile.
+	 * @param shorter
+	 *            the lookahead the current tile gives.
+	 * @param x
+	 *            the x coordinate of the tile to check.
+	 * @param y
+	 *            the y coordinate of the tile to check.
+	 */
+	private void lowerLookahead(int current, int shorter, int x, int y) {
+		if (x < 0 || x >= this.columns || y < 0 || y >= this.rows) {
+			return;
+		}
+		int index = this.workspace.toIndex(x, y);
+		if (shorter >= lookaheadOf(index) || !isPassable(x, y)) {
+			return;
+		}
+		touch(index);
+		this.workspace.visit(index, current);
+		this.lookahead.set(index, shorter);
+		enqueue(index);
+	}
+
+	/**
+	 * Updates the lookahead of the tile at the specified coordinates if it is
+	 * linked to the raised tile.
+	 *
+	 * @param raised
+	 *            the index of the raised tile.
+	 * @param x
+	 *            the x coordinate of the tile to check.
+	 * @param y
+	 *            the y coordinate of the tile to check.
+	 */
+	private void raiseLookahead(int raised, int x, int y) {
+		if (x < 0 || x >= this.columns || y < 0 || y >= this.rows) {
+			return;
+		}
+		int index = this.workspace.toIndex(x, y);
+		if (lookaheadOf(index) != INFINITE
+				&& this.workspace.getParent(index) == raised) {
+			updateLookahead(index);
+		}
+	}
+
+	/**
+	 * Links the tile at the specified index to its closest neighbor and sets
+	 * its lookahead from it, then queues the tile if it is inconsistent. The
+	 * root keeps its lookahead of 0, and an impassable tile has none.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void updateLookahead(int index) {
+		if (index == this.root) {
+			return;
+		}
+		touch(index);
+		int x = this.workspace.toX(index);
+		int y = this.workspace.toY(index);
+		int best = UNREACHABLE;
+		if (isPassable(x, y)) {
+			best = closer(best, x - 1, y);
+			best = closer(best, x + 1, y);
+			best = closer(best, x, y - 1);
+			best = closer(best, x, y + 1);
+		}
+		if (best == UNREACHABLE) {
+			this.workspace.visit(index, PathWorkspace.NO_PARENT);
+			this.lookahead.set(index, INFINITE);
+		} else {
+			this.workspace.visit(index, best);
+			this.lookahead.set(index, this.distance.get(best) + 1);
+		}
+		enqueue(index);
+	}
+
+	/**
+	 * Queues the tile at the specified index at the smaller of its distance
+	 * and lookahead if they differ. A tile already queued at that key stays
+	 * where it is. A consistent tile, or one beyond the farthest distance
+	 * searched, is taken off the queue instead. Once the buckets hold many
+	 * entries of requeued tiles, they are compacted.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void enqueue(int index) {
+		int distance = this.distance.get(index);
+		int lookahead = this.lookahead.get(index);
+		int queued = this.queuedKey.get(index);
+		int key = Math.min(distance, lookahead);
+		if (distance == lookahead || key > this.maxDistance) {
+			// Its entry is skipped when it comes up.
+			if (queued != NOT_QUEUED) {
+				this.queuedKey.set(index, NOT_QUEUED);
+				this.queuedTiles--;
+			}
+			return;
+		}
+		if (queued == key) {
+			return;
+		}
+		if (queued == NOT_QUEUED) {
+			this.queuedTiles++;
+		}
+		this.queuedKey.set(index, key);
+
+		// Grow the buckets to the key.
+		if (key >= this.buckets.length) {
+			IntQueue[] grown = new IntQueue[Math.min(this.maxDistance + 1,
+					Math.max(key + 1, this.buckets.length * 2))];
+			System.arraycopy(this.buckets, 0, grown, 0, this.buckets.length);
+			this.buckets = grown;
+		}
+		if (this.buckets[key] == null) {
+			this.buckets[key] = new IntQueue(16);
+		}
+		this.buckets[key].add(index);
+		this.queueEntries++;
+		this.topKey = Math.min(this.topKey, key);
+		this.lastKey = Math.max(this.lastKey, key);
+
+		if (this.queueEntries > 2 * this.queuedTiles + this.columns
+				+ this.rows) {
+			compact();
+		}
+	}
+
+	/**
+	 * Returns the lowest key a tile is queued at.
+	 *
+	 * @return the lowest key, or INFINITE if no tile is queued.
+	 */
+	private int peekKey() {
+		while (this.topKey <= this.lastKey) {
+			IntQueue bucket = this.buckets[this.topKey];
+			if (bucket != null && !bucket.isEmpty()) {
+				return this.topKey;
+			}
+			this.topKey++;
+		}
+		this.topKey = 0;
+		this.lastKey = -1;
+		return INFINITE;
+	}
+
+	/**
+	 * Removes the entries of tiles queued again at another key, so that each
+	 * queued tile has a single entry.
+	 *
+	 */
+	private void compact() {
+		for (int key = this.topKey; key <= this.lastKey; key++) {
+			IntQueue bucket = this.buckets[key];
+			if (bucket == null) {
+				continue;
+			}
+			for (int i = bucket.size(); i > 0; i--) {
+				int index = bucket.remove();
+				if (this.queuedKey.get(index) == key) {
+					bucket.add(index);
+				}
+			}
+		}
+		this.queueEntries = this.queuedTiles;
+	}
+
+	/**
+	 * Empties the field and the queue, so that no tile is reached. The
+	 * pending changes are dropped, since a new root starts from scratch. Once
+	 * more pages are allocated than one search touches, they are freed, so
+	 * the field's memory follows the target across a large map.
+	 *
+	 */
+	private void clear() {
+		if (this.workspace.getAllocatedSize() > this.allocationLimit) {
+			this.workspace.release();
+			this.distance.clear();
+			this.lookahead.clear();
+			this.queuedKey.clear();
+		} else {
+			this.workspace.reset();
+		}
+		for (int key = this.topKey; key <= this.lastKey; key++) {
+			if (this.buckets[key] != null) {
+				this.buckets[key].clear();
+			}
+		}
+		this.topKey = 0;
+		this.lastKey = -1;
+		this.queuedTiles = 0;
+		this.queueEntries = 0;
+		this.root = UNREACHABLE;
+		this.changedTiles.clear();
+	}
+
+	/**
+	 * Makes sure the tile at the specified index is touched by the field. An
+	 * untouched tile starts unreached and unqueued.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 */
+	private void touch(int index) {
+		if (this.workspace.isVisited(index)) {
+			return;
+		}
+		this.workspace.visit(index, PathWorkspace.NO_PARENT);
+		this.distance.set(index, INFINITE);
+		this.lookahead.set(index, INFINITE);
+		this.queuedKey.set(index, NOT_QUEUED);
+	}
+
+	/**
+	 * Returns whether the tile at the specified coordinates is passable for
+	 * the field's terrain class.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return true if the tile is passable, false if not.
+	 */
+	private boolean isPassable(int x, int y) {
+		return this.level.isPassable(this.terrain, this.level.getTile(x, y));
+	}
+
+	/**
+	 * Returns the first tile to move to from the specified tile toward the
+	 * target. The tile must be settled. A reached tile follows its link. A
+	 * tile the field did not reach, such as an Enemy standing in dirt, steps
+	 * to its closest reached neighbor.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the index of the next tile, or UNREACHABLE if the tile is the
+	 *         target or the target cannot be reached.
+	 */
+	public int getNextStep(int x, int y) {
+		int index = this.workspace.toIndex(x, y);
+		int steps = getDistance(x, y);
+		if (steps == 0) {
+			return UNREACHABLE;
+		}
+		if (steps != UNREACHABLE) {
+			return this.workspace.getParent(index);
+		}
+
+		// Step to the closest reached neighbor in the left, right, up, down
+		// order.
+		int best = UNREACHABLE;
+		best = closer(best, x - 1, y);
+		best = closer(best, x + 1, y);
+		best = closer(best, x, y - 1);
+		best = closer(best, x, y + 1);
+		return best;
+	}
+
+	/**
+	 * Returns whichever of the best tile so far and the tile at the specified
+	 * coordinates is closer to the target. Ties keep the best tile so far.
+	 *
+	 * @param best
+	 *            the index of the best tile so far, or UNREACHABLE.
+	 * @param x
+	 *            the x coordinate of the tile to check.
+	 * @param y
+	 *            the y coordinate of the tile to check.
+	 * @return the index of the closer tile, or UNREACHABLE.
+	 */
+	private int closer(int best, int x, int y) {
+		if (x < 0 || x >= this.columns || y < 0 || y >= this.rows) {
+			return best;
+		}
+		int index = this.workspace.toIndex(x, y);
+		if (distanceOf(index) == INFINITE) {
+			return best;
+		}
+		if (best == UNREACHABLE
+				|| this.distance.get(index) < this.distance.get(best)) {
+			return index;
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the number of steps from the specified tile to the target. The
+	 * tile must be settled.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the number of steps, or UNREACHABLE.
+	 */
+	public int getDistance(int x, int y) {
+		int steps = distanceOf(this.workspace.toIndex(x, y));
+		if (steps == INFINITE) {
+			return UNREACHABLE;
+		}
+		return steps;
+	}
+
+	/**
+	 * Returns the distance of the tile at the specified index. Tiles not
+	 * touched since the field was last cleared are unreached, so the
+	 * distances never need to be cleared.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 * @return the distance, or INFINITE.
+	 */
+	private int distanceOf(int index) {
+		if (!this.workspace.isVisited(index)) {
+			return INFINITE;
+		}
+		return this.distance.get(index);
+	}
+
+	/**
+	 * Returns the lookahead of the tile at the specified index.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 * @return the lookahead, or INFINITE.
+	 */
+	private int lookaheadOf(int index) {
+		if (!this.workspace.isVisited(index)) {
+			return INFINITE;
+		}
+		return this.lookahead.get(index);
+	}
+
+	/**
+	 * Returns the workspace holding the field's tile indices and links.
+	 *
+	 * @return the workspace.
+	 */
+	public PathWorkspace getWorkspace() {
+		return this.workspace;
+	}
+}
@@ -2,11 +2,11 @@ package objects;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
-import toolObjects.MusicPlayer;
+import toolObjects.AssetCache;
+import toolObjects.Camera;
+import toolObjects.Sound;
+import toolObjects.Sprite;
 
 /**
  * Gold can be pushed horizontally, fall, kill people, and break up (if fallen
@@ -21,7 +21,7 @@ public class Gold {
 	// Variables.
 	private int tilePositionX; // Gold tile position in the X plane.
 	private int tilePositionY; // Gold tile position in the Y plane.
-	private BufferedImage sprite; // Gold player image.
+	private Sprite sprite; // Gold player image.
 	private Level level; // The current level.
 
 	private Rectangle2D.Double collisionBox; // The collision box for the Gold box.
@@ -31,7 +31,7 @@ public class Gold {
 	private int delay; // This counter makes the gold box fall faster or slower, depending on
 	 					//  how high the counter is set.
 
-	private MusicPlayer chestOpen; // Chest open sound.
+	private Sound chestOpen; // Chest open sound.
 	/**
 	 * Constructs a Gold object (gold bag).
 	 * 
@@ -53,7 +53,7 @@ public class Gold {
 				* this.SCALE, this.tilePositionY * this.SCALE, this.SCALE,
 				this.SCALE);
 		
-		this.chestOpen = new MusicPlayer("/music/chestOpenSound.mp3");
+		this.chestOpen = AssetCache.getSound("/music/chestOpenSound.mp3");
 		
 		// Set counters.
 		this.fallingWaitCounter = 0;
@@ -62,21 +62,15 @@ public class Gold {
 		this.delay = 0;
 		
 		// Get image.
-		try {
-			this.sprite = ImageIO.read(getClass().getResourceAsStream("/tile/chest.png"));
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.out.println("Error: File not found");
-		}
+		this.sprite = AssetCache.getSprite("/tile/chest.png");
 	}
 
 	/**
-	 * Draws the Gold boxes on the specified Graphics2D object.
+	 * Updates the Gold box. Breaks it into treasure once it has stopped after
+	 * falling, and otherwise checks if it can fall.
 	 * 
-	 * @param g2
-	 *            the specified Graphics2D object.
 	 */
-	public void draw(Graphics2D g2) {
+	public void update() {
 		// Sets the variable.
 		final int TREASURE = 20;
 		
@@ -105,18 +99,38 @@ public class Gold {
 		// Update the collisionBox.
 		this.collisionBox.setRect(this.tilePositionX * this.SCALE,
 				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE);
-		
-		// Draw.
-		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
-				* this.SCALE);
-		g2.drawImage(this.sprite, 0, 0, null);
-		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
-				* this.SCALE);		
 
 		// Check below if it can fall.
 		checkBelow();
 	}
 
+	/**
+	 * Draws the Gold boxes on the specified Graphics2D object.
+	 * 
+	 * @param g2
+	 *            the specified Graphics2D object.
+	 * @param camera
+	 *            the Camera the map is drawn from.
+	 */
+	public void draw(Graphics2D g2, Camera camera) {
+		// If the Gold box broke, it is off the map and is not drawn.
+		if (this.tilePositionX == -1) {
+			return;
+		}
+
+		// If the Gold box is outside the Camera's view, do not draw.
+		if (!camera.isVisible(this.tilePositionX * this.SCALE,
+				this.tilePositionY * this.SCALE, this.SCALE, this.SCALE)) {
+			return;
+		}
+
+		g2.translate(this.tilePositionX * this.SCALE, this.tilePositionY
+				* this.SCALE);
+		this.sprite.draw(g2, 0, 0);
+		g2.translate(-this.tilePositionX * this.SCALE, -this.tilePositionY
+				* this.SCALE);
+	}
+
 	/**
 	 * Checks if the tile below is a clear and moves the Gold object downwards.
 	 * 
@@ -127,10 +141,10 @@ public class Gold {
 		
 		// Setting variables.
 		final int CLEAR = this.level.CLEAR;
-		int[][] map = this.level.getMap();
 		
 		// Checks if the space below the box is clear. If it is, it falls.
-		if (map[this.tilePositionX][this.tilePositionY + 1] == this.level.CLEAR) {
+		if (this.level.getTile(this.tilePositionX, this.tilePositionY + 1)
+				== this.level.CLEAR) {
 			// This enables the gold box to wait a little before it falls.
 			if (this.fallingWaitCounter == FALLING_WAIT_LIMIT) {
 				this.level.updateTile(this.tilePositionX, this.tilePositionY,
@@ -1,13 +1,7 @@
 package objects;
 
-import java.awt.geom.Rectangle2D;
-import java.io.IOException;
-import java.util.ArrayList;
-
-import javax.imageio.ImageIO;
-
+import toolObjects.AssetCache;
 import toolObjects.Coordinate;
-import toolObjects.Node;
 
 /**
  * A Hobbin, an enemy that can dig its own tunnels to the player object.
@@ -25,13 +19,7 @@ public class Hobbin extends Enemy {
 	 */
 	public Hobbin(Level level, Digger player) {
 		super(level, player);
-		try {
-			this.sprite = ImageIO.read(getClass().getResourceAsStream("/enemy/hobbin.png"));
-		} catch (IOException e) {
-			System.out.println("Error: File not found.");
-			e.printStackTrace();
-			System.exit(0);
-		}
+		this.sprite = AssetCache.getSprite("/enemy/hobbin.png");
 	}
 
 	/**
@@ -46,32 +34,15 @@ public class Hobbin extends Enemy {
 	 */
 	public Hobbin(Level level, Digger player, Coordinate tileCoordinate) {
 		super(level, player);
-		try {
-			this.sprite = ImageIO.read(getClass().getResourceAsStream("/enemy/hobbin.png"));
-		} catch (IOException e) {
-			System.out.println("Error: File not found.");
-			e.printStackTrace();
-			System.exit(0);
-		}
-		calculateHeuristic();
+		this.sprite = AssetCache.getSprite("/enemy/hobbin.png");
+		prepareSearch();
 		this.tilePositionX = tileCoordinate.getX();
 		this.tilePositionY = tileCoordinate.getY();
 	}
 
 	@Override
-	protected void canMoveTo(Node nodeCurrent, int mapPositionID,
-			Node nodePosition) {
-		// Constants.
-		final ArrayList<Integer> BARRIERS = this.level.getBarriersIDList();
-		final int GOLD = this.level.GOLD;
-
-		if (!BARRIERS.contains(mapPositionID) && mapPositionID != GOLD
-				&& !this.close.contains(nodePosition)) {
-			if (nodePosition.getNext() == null) {
-				nodePosition.setNext(nodeCurrent);
-				this.open.add(nodePosition);
-			}
-		}
+	protected int getTerrain() {
+		return Level.HOBBIN_TERRAIN;
 	}
 
 	@Override
@@ -80,8 +51,8 @@ public class Hobbin extends Enemy {
 	}
 
 	@Override
-	public void collideWithOthers(int[][] map) {
-		super.collideWithOthers(map);
+	public void collideWithOthers() {
+		super.collideWithOthers();
 
 		// Constants.
 		final int CLEAR = this.level.CLEAR;
@@ -89,29 +60,26 @@ public class Hobbin extends Enemy {
 		final int DIRT = this.level.DIRT;
 		final int TREASURE = this.level.TREASURE;
 
-		// Gets the level's regularCollisionBoxes.
-		ArrayList<Rectangle2D.Double> regularCollisionBoxes = this.level
-				.getRegularCollisionBoxes();
+		// Gets the tiles the Hobbin overlaps.
+		int count = this.level.getOverlappingTiles(this.collisionBox,
+				this.overlapX, this.overlapY);
 
 		// Loop through and update the blocks to clear as the Hobbin moves
 		// through the level.
-		for (int i = 0; i < regularCollisionBoxes.size(); i++) {
-			if (this.collisionBox.intersects(regularCollisionBoxes.get(i))) {
-				int column = (int) regularCollisionBoxes.get(i).getX() / this.SCALE;
-				int row = (int) regularCollisionBoxes.get(i).getY() / this.SCALE;
-				if (map[column][row] == DIRT) {
+		for (int i = 0; i < count; i++) {
+			int column = this.overlapX[i];
+			int row = this.overlapY[i];
+			if (this.level.isRegularCollisionTile(column, row)) {
+				if (this.level.getTile(column, row) == DIRT) {
 					this.level.updateTile(column, row, CLEAR);
 				}
-				if (map[column][row] == EMERALD) {
+				if (this.level.getTile(column, row) == EMERALD) {
 					this.level.updateTile(column, row, CLEAR);
 				}
-				if (map[column][row] == TREASURE) {
+				if (this.level.getTile(column, row) == TREASURE) {
 					this.level.updateTile(column, row, CLEAR);
 				}
 			}
 		}
-		
-		// Generate a new level of regularCollisionBoxes.
-		this.level.generateRegularCollisionBoxes();
 	}
 }
@@ -1,17 +1,20 @@
 package objects;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
-import javax.imageio.ImageIO;
+import main.GamePanel;
+import toolObjects.AssetCache;
+import toolObjects.Camera;
+import toolObjects.IntQueue;
+import toolObjects.Sprite;
 
 public class Level {
 	// Tile id constants (add more here)
@@ -26,7 +29,9 @@ public class Level {
 	public final int GOLD = 4;
 	public final int TREASURE = 20;
 
-	// ArrayList of the Barriers Below. Depends on specific usuage.
+	// ArrayList of the Barriers Below. Depends on specific usuage. The Life X
+	// and Number Barriers are only found in the level files, which mark where
+	// the Hud is drawn, and are drawn as plain barriers under the Hud.
 	public final ArrayList<Integer> BARRIERS = new ArrayList<>(Arrays.asList(1,
 			5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
 
@@ -49,25 +54,64 @@ public class Level {
 	public final int BARRIER_9 = 18;
 	public final int BARRIER_0 = 19;
 
+	// Terrain classes. (Used for Enemy path finding)
+	public static final int NOBBIN_TERRAIN = 0;
+	public static final int HOBBIN_TERRAIN = 1;
+
+	// The most tiles a tile sized object can overlap.
+	public static final int MAX_TILE_OVERLAP = 4;
+	// The most tiles of a map searched in full by the flow fields. Larger maps
+	// cap the searches at the distance covering about as many tiles.
+	public static final int MAX_SEARCHED_TILES = 1 << 20;
+
+	// Tile cache. (Used to draw the map in chunks)
+	public static final int CHUNK_SIZE = 16; // The chunk width in tiles.
+	// The default most bytes the cached chunks may take.
+	public static final long DEFAULT_CACHE_LIMIT = 16L * 1024 * 1024;
+
+	// Tile counts. (Used to answer how many tiles of a tileID are left)
+	// Whether the counts are checked against the map, for debugging.
+	private static final boolean CHECK_TILE_COUNTS = Boolean
+			.getBoolean("digger.checkTileCounts");
+	// The count queries between two checks against the map.
+	private static final int TILE_COUNT_CHECK_INTERVAL = 600;
+
+	// Collision index values. (Used by the collisionChunks arrays)
+	private final byte COLLISION_NONE = 0;
+	private final byte COLLISION_REGULAR = 1;
+	private final byte COLLISION_BARRIER = 2;
+
 	// Level Field Variables.
-	private int mapWidth; // The map array width.
-	private int mapHeight; // The map array height.
-	private int[][] map; // The map array. (height, width)
-	private boolean[][] mapFlag; // The map flag array. (height, width)
+	private int mapWidth; // The map width in tiles.
+	private int mapHeight; // The map height in tiles.
+	private TileStorage tiles; // The tileIDs of the map.
+	private Rectangle viewport; // The part of the map drawn, in pixels.
+	private int chunkColumns; // The number of chunks in the X direction.
+	private int chunkRows; // The number of chunks in the Y direction.
+	private TileChunk[] chunkGrid; // The cached chunk at each chunk index,
+									// row by row.
+	private LinkedHashMap<Integer, TileChunk> chunks; // The cached chunks,
+														// least recently
+														// drawn first.
+	private TileChunk spareChunk; // The last evicted chunk, kept for reuse.
+	private long cacheLimit; // The most bytes the cached chunks may take.
+	private long cacheBytes; // The bytes the cached chunks take.
 	private int tileSize; // The tileSize. Preferably 32.
-	private ArrayList<Rectangle2D.Double> barrierCollisionBoxes; // The
-																	// arraylist
-																	// of
-																	// barrier
-																	// collision
-																	// boxes.
-	private ArrayList<Rectangle2D.Double> regularCollisionBoxes; // The
-																	// arraylist
-																	// of
-																	// collision
-																	// boxes.
+	private byte[][] collisionChunks; // The collision class of each tile of
+										// each chunk, row by row within the
+										// chunk, or null until the chunk is
+										// first touched.
 	private ArrayList<Gold> goldObjects; // The arraylist of Gold objects.
-	private HashMap<Integer, BufferedImage> images; // Hashmap of tile images.
+	private HashMap<Integer, Sprite> images; // Hashmap of tile images.
+	private boolean[][] passableTiles; // The passable tileIDs of each terrain
+										// class. (terrain, tileID)
+	private ArrayList<TileChangeListener> tileChangeListeners; // The
+																// listeners
+																// notified by
+																// updateTile.
+	private FlowField[] flowFields; // The flow field of each terrain class.
+	private int[] tileCounts; // The number of tiles of each tileID.
+	private int countQueries; // The count queries since the last check.
 
 	/**
 	 * Constructs a Level object with given tileSize that searches for a
@@ -80,11 +124,15 @@ public class Level {
 	 */
 	public Level(String fileName, int tileSize) {
 		this.tileSize = tileSize;
-		this.barrierCollisionBoxes = new ArrayList<Rectangle2D.Double>();
-		this.regularCollisionBoxes = new ArrayList<Rectangle2D.Double>();
 		this.goldObjects = new ArrayList<Gold>();
+		this.tileChangeListeners = new ArrayList<TileChangeListener>();
+
+		this.images = new HashMap<Integer, Sprite>();
+		this.viewport = new Rectangle(0, 0, GamePanel.GAMEPANEL_WIDTH,
+				GamePanel.GAMEPANEL_HEIGHT);
+		this.cacheLimit = DEFAULT_CACHE_LIMIT;
 
-		this.images = new HashMap<Integer, BufferedImage>();
+		populatePassableTiles();
 
 		populateImages();
 		populateMap(fileName, tileSize);
@@ -96,144 +144,116 @@ public class Level {
 	 * 
 	 */
 	public void populateImages() {
-		try {
-			// Regular Tiles/Objects.
-			this.images.put(
-					this.DIRT,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/dirt.png")));
-			this.images.put(
-					this.CLEAR,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/clear.png")));
-			this.images.put(
-					this.EMERALD,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/emeraldOre.png")));
-			this.images.put(
-					this.GOLD,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/chest.png")));
-			this.images.put(
-					this.TREASURE,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/treasure.png")));
-
-			// Barriers.
-			this.images.put(
-					this.BARRIER,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrier.png")));
-			this.images.put(
-					this.BARRIER_L,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierLBlock.png")));
-			this.images.put(
-					this.BARRIER_I,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierIBlock.png")));
-			this.images.put(
-					this.BARRIER_F,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierFBlock.png")));
-			this.images.put(
-					this.BARRIER_E,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierEBlock.png")));
-			this.images.put(
-					this.BARRIER_X,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierXBlock.png")));
-			this.images.put(
-					this.BARRIER_0,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber0.png")));
-			this.images.put(
-					this.BARRIER_1,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber1.png")));
-			this.images.put(
-					this.BARRIER_2,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber2.png")));
-			this.images.put(
-					this.BARRIER_3,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber3.png")));
-			this.images.put(
-					this.BARRIER_4,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber4.png")));
-			this.images.put(
-					this.BARRIER_5,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber5.png")));
-			this.images.put(
-					this.BARRIER_6,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber6.png")));
-			this.images.put(
-					this.BARRIER_7,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber7.png")));
-			this.images.put(
-					this.BARRIER_8,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber8.png")));
-			this.images.put(
-					this.BARRIER_9,
-					ImageIO.read(getClass().getResourceAsStream(
-							"/tile/barrier/barrierNumber9.png")));
-
-		} catch (IOException exception) {
-			exception.printStackTrace();
-			System.out.println("Error: A file was not found.");
+		// Regular Tiles/Objects.
+		this.images.put(this.DIRT, AssetCache.getSprite("/tile/dirt.png"));
+		this.images.put(this.CLEAR, AssetCache.getSprite("/tile/clear.png"));
+		this.images.put(this.EMERALD, AssetCache.getSprite("/tile/emeraldOre.png"));
+		this.images.put(this.GOLD, AssetCache.getSprite("/tile/chest.png"));
+		this.images.put(this.TREASURE, AssetCache.getSprite("/tile/treasure.png"));
+
+		// Barriers. The Life X and Number Barriers are covered by the Hud.
+		Sprite barrier = AssetCache.getSprite("/tile/barrier/barrier.png");
+		this.images.put(this.BARRIER, barrier);
+		for (int tileID = this.BARRIER_L; tileID <= this.BARRIER_0; tileID++) {
+			this.images.put(tileID, barrier);
+		}
+	}
+
+	/**
+	 * Populates the passableTiles table. Nobbins can only move through clear
+	 * and treasure tiles. Hobbins can move through anything but barriers and
+	 * gold.
+	 * 
+	 */
+	public void populatePassableTiles() {
+		this.passableTiles = new boolean[2][this.TREASURE + 1];
+		for (int tileID = 0; tileID <= this.TREASURE; tileID++) {
+			this.passableTiles[NOBBIN_TERRAIN][tileID] = tileID == this.CLEAR
+					|| tileID == this.TREASURE;
+			this.passableTiles[HOBBIN_TERRAIN][tileID] = !this.BARRIERS
+					.contains(tileID) && tileID != this.GOLD;
 		}
 	}
 
 	/**
-	 * Initializes the Map 2D ArrayList.
+	 * Returns whether a tile with the specified tileID can be moved through by
+	 * an Enemy of the specified terrain class.
+	 * 
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @param tileID
+	 *            the tileID to check.
+	 * @return true if it is passable, false if not.
+	 */
+	public boolean isPassable(int terrain, int tileID) {
+		return tileID >= 0 && tileID < this.passableTiles[terrain].length
+				&& this.passableTiles[terrain][tileID];
+	}
+
+	/**
+	 * Adds a listener that is notified whenever updateTile changes a tile.
+	 * 
+	 * @param listener
+	 *            the listener to add.
+	 */
+	public void addTileChangeListener(TileChangeListener listener) {
+		this.tileChangeListeners.add(listener);
+	}
+
+	/**
+	 * Returns the flow field toward the player shared by the Enemies of the
+	 * specified terrain class.
+	 * 
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @return the flow field.
+	 */
+	public FlowField getFlowField(int terrain) {
+		return this.flowFields[terrain];
+	}
+
+	/**
+	 * Initializes the map's tiles. The binary level of the file is opened if
+	 * there is one, and the text level otherwise. Large binary levels are
+	 * memory-mapped rather than read. No tile is scanned here: the collision
+	 * classes and Gold objects of a chunk are made when it is first touched.
 	 * 
 	 * @param fileName
 	 *            the fileName to search for.
 	 * @param tileSize
 	 *            the pixel size of a tile. 32 is perferable.
 	 */
-	BufferedImage img = null;
 	public void populateMap(String fileName, int tileSize) {
 		try {
-			String parser = " ";
-			String currentLine = null;
-			String[] currentLineValues = null;
-//			FileReader fileInput = new FileReader(fileName);
-//			BufferedReader imageReader = new BufferedReader(new FileReader(fileInput));
-			InputStream fileInput = getClass().getResourceAsStream(fileName);
-			BufferedReader imageReader = new BufferedReader(new InputStreamReader(fileInput));
-			this.mapWidth = Integer.parseInt(imageReader.readLine());
-			this.mapHeight = Integer.parseInt(imageReader.readLine());
-
-			this.map = new int[this.mapHeight][this.mapWidth];
-			this.mapFlag = new boolean[this.mapHeight][this.mapWidth];
-
-			for (int r = 0; r < this.map.length; r++) {
-				// Get line of numbers and spaces.
-				currentLine = imageReader.readLine();
-
-				// Eliminates currentLine's space and obtain a array of String
-				// integers.
-				currentLineValues = currentLine.split(parser);
-
-				for (int c = 0; c < this.map[r].length; c++) {
-					// Convert the String integers into integer values to be
-					// stored in level.
-					this.map[c][r] = Integer.parseInt(currentLineValues[c]);
-				}
+			this.tiles = LevelFile.open(fileName);
+			this.mapWidth = this.tiles.getWidth();
+			this.mapHeight = this.tiles.getHeight();
+
+			// The tiles within a distance d of a tile form a diamond of
+			// about 2 * d * d tiles.
+			int maxDistance = this.mapWidth * this.mapHeight - 1;
+			if (this.mapWidth * this.mapHeight > MAX_SEARCHED_TILES) {
+				maxDistance = (int) Math.sqrt(MAX_SEARCHED_TILES / 2);
 			}
-			img = new BufferedImage(this.mapWidth*this.tileSize,this.mapHeight*this.tileSize,BufferedImage.TYPE_INT_RGB);
-			imageReader.close();
-			generateBarrierCollisionBoxes();
-			generateRegularCollisionBoxes();
-			generateGoldObjects();
+			this.flowFields = new FlowField[] {
+					new FlowField(this, NOBBIN_TERRAIN, this.mapWidth,
+							this.mapHeight, maxDistance),
+					new FlowField(this, HOBBIN_TERRAIN, this.mapWidth,
+							this.mapHeight, maxDistance) };
+			addTileChangeListener(this.flowFields[NOBBIN_TERRAIN]);
+			addTileChangeListener(this.flowFields[HOBBIN_TERRAIN]);
+
+			// Chunks are cached when they are first drawn.
+			this.chunkColumns = (this.mapWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.chunkRows = (this.mapHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.chunkGrid = new TileChunk[this.chunkColumns * this.chunkRows];
+			this.chunks = new LinkedHashMap<Integer, TileChunk>(16, 0.75f,
+					true);
+			this.spareChunk = null;
+			this.cacheBytes = 0;
+			this.collisionChunks = new byte[this.chunkColumns * this.chunkRows][];
+			this.tileCounts = this.tiles.countTiles();
+			this.countQueries = 0;
 
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -242,71 +262,214 @@ public class Level {
 	}
 
 	/**
-	 * Generates a collision box for the barriers of the level.
+	 * Returns the collision classes of the tiles of the chunk at the specified
+	 * chunk index. A chunk is touched by a collision query, a tile update or
+	 * by coming into the Camera's view on an update, never by drawing. When it
+	 * is first touched, each of its tiles is classified and its Gold objects
+	 * are generated, and afterwards the classes are kept up to date by
+	 * updateTile.
 	 * 
+	 * @param chunkIndex
+	 *            the chunk index of the chunk, row by row.
+	 * @return the collision classes, row by row within the chunk.
 	 */
-	public void generateBarrierCollisionBoxes() {
-		for (int r = 0; r < this.map.length; r++) {
-			for (int c = 0; c < this.map[r].length; c++) {
-				if (this.BARRIERS.contains(this.map[r][c])) {
-					this.barrierCollisionBoxes.add(new Rectangle2D.Double(r
-							* this.tileSize, c * this.tileSize, this.tileSize,
-							this.tileSize));
-				}
+	private byte[] touchChunk(int chunkIndex) {
+		byte[] collisions = this.collisionChunks[chunkIndex];
+		if (collisions != null) {
+			return collisions;
+		}
+
+		int firstX = (chunkIndex % this.chunkColumns) * CHUNK_SIZE;
+		int firstY = (chunkIndex / this.chunkColumns) * CHUNK_SIZE;
+		int lastX = Math.min(this.mapWidth, firstX + CHUNK_SIZE);
+		int lastY = Math.min(this.mapHeight, firstY + CHUNK_SIZE);
+		collisions = new byte[CHUNK_SIZE * CHUNK_SIZE];
+		for (int y = firstY; y < lastY; y++) {
+			for (int x = firstX; x < lastX; x++) {
+				collisions[chunkTileIndexOf(x, y)] = classifyTile(x, y,
+						this.tiles.getTile(x, y));
+			}
+		}
+		this.collisionChunks[chunkIndex] = collisions;
+		generateGoldObjects(firstX, firstY, lastX, lastY);
+		return collisions;
+	}
+
+	/**
+	 * Touches the chunks inside the specified Camera's view, so that their
+	 * Gold exists before they are drawn. Called on update, since drawing does
+	 * not change the Level.
+	 * 
+	 * @param camera
+	 *            the Camera the map is drawn from.
+	 */
+	public void touchChunks(Camera camera) {
+		int chunkPixels = CHUNK_SIZE * this.tileSize;
+		int firstX = Math.max(0, camera.getPositionX() / chunkPixels);
+		int firstY = Math.max(0, camera.getPositionY() / chunkPixels);
+		int lastX = Math.min(this.chunkColumns - 1,
+				(camera.getPositionX() + camera.getWidth() - 1) / chunkPixels);
+		int lastY = Math.min(this.chunkRows - 1,
+				(camera.getPositionY() + camera.getHeight() - 1) / chunkPixels);
+		for (int y = firstY; y <= lastY; y++) {
+			for (int x = firstX; x <= lastX; x++) {
+				touchChunk(y * this.chunkColumns + x);
 			}
 		}
 	}
 
 	/**
-	 * Returns the arraylist of barrier collision boxes.
+	 * Returns the chunk index of the chunk holding the specified tile.
+	 * 
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the chunk index, row by row.
+	 */
+	private int chunkIndexOf(int x, int y) {
+		return (y / CHUNK_SIZE) * this.chunkColumns + x / CHUNK_SIZE;
+	}
+
+	/**
+	 * Returns the index of the specified tile within its chunk.
+	 * 
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the index within the chunk, row by row.
+	 */
+	private int chunkTileIndexOf(int x, int y) {
+		return (y % CHUNK_SIZE) * CHUNK_SIZE + x % CHUNK_SIZE;
+	}
+
+	/**
+	 * Returns the collision class of a tile with the given tileID at the given
+	 * position. Barriers collide anywhere on the map, while regular blocks
+	 * (dirt, emerald and treasure) are not tracked on the first row and
+	 * column.
+	 * 
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @param tileID
+	 *            the tileID of the tile.
+	 * @return the collision class of the tile.
+	 */
+	private byte classifyTile(int x, int y, int tileID) {
+		if (this.BARRIERS.contains(tileID)) {
+			return this.COLLISION_BARRIER;
+		}
+		if (x >= 1 && y >= 1 && tileID != this.CLEAR && tileID != this.GOLD) {
+			return this.COLLISION_REGULAR;
+		}
+		return this.COLLISION_NONE;
+	}
+
+	/**
+	 * Returns whether the tile at the specified coordinates is a barrier
+	 * collision tile.
+	 * 
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return true if the tile is a barrier, false if not.
+	 */
+	public boolean isBarrierCollisionTile(int x, int y) {
+		return touchChunk(chunkIndexOf(x, y))[chunkTileIndexOf(x, y)]
+				== this.COLLISION_BARRIER;
+	}
+
+	/**
+	 * Returns whether the tile at the specified coordinates is a regular
+	 * (dirt, emerald or treasure) collision tile.
 	 * 
-	 * @return the arraylist of barrier collision boxes.
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return true if the tile is a regular block, false if not.
 	 */
-	public ArrayList<Rectangle2D.Double> getBarrierCollisonBoxes() {
-		return this.barrierCollisionBoxes;
+	public boolean isRegularCollisionTile(int x, int y) {
+		return touchChunk(chunkIndexOf(x, y))[chunkTileIndexOf(x, y)]
+				== this.COLLISION_REGULAR;
 	}
 
 	/**
-	 * Generates a collision box for the regular blocks (dirt and emerald) of
-	 * the level.
+	 * Finds the tiles whose area overlaps the given rectangle. Only the tiles
+	 * within the rectangle's bounds are visited, so a tile sized rectangle
+	 * touches at most four tiles. The x and y coordinates of the found tiles
+	 * are stored in tilesX and tilesY, up to the length of the arrays.
 	 * 
+	 * @param box
+	 *            the rectangle to check in pixels.
+	 * @param tilesX
+	 *            the array to store the x coordinates of the tiles in.
+	 * @param tilesY
+	 *            the array to store the y coordinates of the tiles in.
+	 * @return the number of tiles found.
 	 */
-	public void generateRegularCollisionBoxes() {
-		// Clear the array list everytime it is called.
-		this.regularCollisionBoxes.clear();
+	public int getOverlappingTiles(Rectangle2D.Double box, int[] tilesX,
+			int[] tilesY) {
+		// An empty rectangle does not overlap anything.
+		if (box.width <= 0 || box.height <= 0) {
+			return 0;
+		}
 
-		// Loop through map and generate only required collision boxes.
-		for (int r = 1; r < this.map.length; r++) {
-			for (int c = 1; c < this.map[r].length; c++) {
-				if (!(this.BARRIERS.contains(this.map[r][c]))
-						&& this.map[r][c] != this.CLEAR
-						&& this.map[r][c] != this.GOLD) {
-					this.regularCollisionBoxes.add(new Rectangle2D.Double(r
-							* this.tileSize, c * this.tileSize, this.tileSize,
-							this.tileSize));
+		// Convert the pixel bounds to tile bounds within the map.
+		int minX = Math.max(0, (int) Math.floor(box.x / this.tileSize));
+		int minY = Math.max(0, (int) Math.floor(box.y / this.tileSize));
+		int maxX = Math.min(this.mapWidth - 1,
+				(int) Math.ceil((box.x + box.width) / this.tileSize) - 1);
+		int maxY = Math.min(this.mapHeight - 1,
+				(int) Math.ceil((box.y + box.height) / this.tileSize) - 1);
+
+		// Store the tiles found.
+		int count = 0;
+		for (int x = minX; x <= maxX; x++) {
+			for (int y = minY; y <= maxY; y++) {
+				if (count == tilesX.length) {
+					return count;
 				}
+				tilesX[count] = x;
+				tilesY[count] = y;
+				count++;
 			}
 		}
+		return count;
 	}
 
 	/**
-	 * Returns the arraylist of regular collision boxes.
+	 * Returns the pixel size of a tile.
 	 * 
-	 * @return the arraylist of regular collision boxes.
+	 * @return the tileSize.
 	 */
-	public ArrayList<Rectangle2D.Double> getRegularCollisionBoxes() {
-		return this.regularCollisionBoxes;
+	public int getTileSize() {
+		return this.tileSize;
 	}
 
 	/**
-	 * Generates an array list of Gold objects.
+	 * Generates the Gold objects of the gold tiles in the specified block of
+	 * tiles. Gold on the first row and column of the map is not generated.
 	 * 
+	 * @param firstX
+	 *            the x coordinate of the block's first column.
+	 * @param firstY
+	 *            the y coordinate of the block's first row.
+	 * @param lastX
+	 *            the x coordinate past the block's last column.
+	 * @param lastY
+	 *            the y coordinate past the block's last row.
 	 */
-	public void generateGoldObjects() {
-		// Loop through map and generate Gold objects of level.
-		for (int r = 1; r < this.map.length; r++) {
-			for (int c = 1; c < this.map[r].length; c++) {
-				if (this.map[r][c] == this.GOLD) {
+	private void generateGoldObjects(int firstX, int firstY, int lastX,
+			int lastY) {
+		// Loop through the block and generate Gold objects of level.
+		for (int r = Math.max(1, firstX); r < lastX; r++) {
+			for (int c = Math.max(1, firstY); c < lastY; c++) {
+				if (this.tiles.getTile(r, c) == this.GOLD) {
 					this.goldObjects.add(new Gold(this, r, c));
 				}
 			}
@@ -315,7 +478,8 @@ public class Level {
 	}
 
 	/**
-	 * Returns the array list of goldObjects.
+	 * Returns the array list of goldObjects. Only the Gold of the chunks
+	 * touched so far has been generated; untouched Gold cannot move.
 	 * 
 	 * @return array list of goldObjects.
 	 */
@@ -324,24 +488,227 @@ public class Level {
 	}
 
 	/**
-	 * Assigns the proper images to the tiles.
+	 * Assigns the proper images to the tiles. The map is cached in chunks of
+	 * CHUNK_SIZE by CHUNK_SIZE tiles, and only the chunks inside the Camera's
+	 * view are drawn. A chunk is cached when it first becomes visible, and
+	 * afterwards only its tiles changed since it was last drawn are redrawn.
+	 * The least recently drawn chunks are evicted once the cache takes more
+	 * than its limit.
 	 * 
 	 * @param g2
 	 *            the Graphics2D of where the object is painted.
+	 * @param camera
+	 *            the Camera the map is drawn from.
 	 */
-	public void draw(Graphics2D g2) {
-		int currentPosition;
-		// cache the tile background in an image so tiles don't need to be drawn again and again redundantly.
-		Graphics2D g = img.createGraphics();
-		for (int r = 0; r < this.map.length; r++) {
-			for (int c = 0; c < this.map[r].length; c++) {
-				currentPosition = this.map[r][c];
-				drawTileImage(currentPosition, r, c, g);
+	public void draw(Graphics2D g2, Camera camera) {
+		setViewport(camera.getPositionX(), camera.getPositionY(),
+				camera.getWidth(), camera.getHeight());
+
+		// Find the chunks inside the viewport.
+		int chunkPixels = CHUNK_SIZE * this.tileSize;
+		int firstX = Math.max(0, this.viewport.x / chunkPixels);
+		int firstY = Math.max(0, this.viewport.y / chunkPixels);
+		int lastX = Math.min(this.chunkColumns - 1,
+				(this.viewport.x + this.viewport.width - 1) / chunkPixels);
+		int lastY = Math.min(this.chunkRows - 1,
+				(this.viewport.y + this.viewport.height - 1) / chunkPixels);
+
+		// cache the tile background in chunks so tiles don't need to be drawn
+		// again and again redundantly.
+		for (int y = firstY; y <= lastY; y++) {
+			for (int x = firstX; x <= lastX; x++) {
+				drawChunk(getChunk(x, y), g2);
 			}
 		}
+
+		// Keep the visible chunks cached even if they take more than the
+		// limit.
+		evictChunks(Math.max(0, lastX - firstX + 1)
+				* Math.max(0, lastY - firstY + 1));
+	}
+
+	/**
+	 * Returns the cached chunk at the specified chunk coordinates with its
+	 * changed tiles redrawn. A chunk that is not cached is drawn and cached.
+	 * 
+	 * @param chunkX
+	 *            the x coordinate of the chunk in chunks.
+	 * @param chunkY
+	 *            the y coordinate of the chunk in chunks.
+	 * @return the cached chunk.
+	 */
+	private TileChunk getChunk(int chunkX, int chunkY) {
+		int index = chunkY * this.chunkColumns + chunkX;
+
+		// Mark a cached chunk as the most recently drawn.
+		TileChunk chunk = this.chunks.get(index);
+		if (chunk != null) {
+			redrawDirtyTiles(chunk);
+			return chunk;
+		}
+
+		// Reuse the last evicted chunk if its image has the right size.
+		int width = Math.min(CHUNK_SIZE, this.mapWidth - chunkX * CHUNK_SIZE)
+				* this.tileSize;
+		int height = Math.min(CHUNK_SIZE, this.mapHeight - chunkY * CHUNK_SIZE)
+				* this.tileSize;
+		if (this.spareChunk != null
+				&& this.spareChunk.getImage().getWidth() == width
+				&& this.spareChunk.getImage().getHeight() == height) {
+			chunk = this.spareChunk;
+			chunk.reset(chunkX, chunkY);
+		} else {
+			chunk = new TileChunk(chunkX, chunkY, width, height);
+		}
+		this.spareChunk = null;
+
+		this.chunks.put(index, chunk);
+		this.chunkGrid[index] = chunk;
+		this.cacheBytes = this.cacheBytes + chunk.getByteSize();
+		renderChunk(chunk);
+		return chunk;
+	}
+
+	/**
+	 * Draws every tile of the specified chunk in its cached image.
+	 * 
+	 * @param chunk
+	 *            the chunk to draw.
+	 */
+	private void renderChunk(TileChunk chunk) {
+		int firstX = chunk.getChunkX() * CHUNK_SIZE;
+		int firstY = chunk.getChunkY() * CHUNK_SIZE;
+		int lastX = Math.min(this.mapWidth, firstX + CHUNK_SIZE);
+		int lastY = Math.min(this.mapHeight, firstY + CHUNK_SIZE);
+
+		Graphics2D g = chunk.getImage().createGraphics();
+		g.translate(-firstX * this.tileSize, -firstY * this.tileSize);
+		boolean[] drawnTiles = chunk.getDrawnTiles();
+		for (int y = firstY; y < lastY; y++) {
+			for (int x = firstX; x < lastX; x++) {
+				drawnTiles[chunkTileIndexOf(x, y)] = false;
+				drawTileImage(this.tiles.getTile(x, y), x, y, g);
+			}
+		}
+		g.dispose();
+		chunk.getDirtyTiles().clear();
+	}
+
+	/**
+	 * Redraws the tiles of the specified chunk changed since it was last
+	 * drawn.
+	 * 
+	 * @param chunk
+	 *            the chunk to redraw.
+	 */
+	private void redrawDirtyTiles(TileChunk chunk) {
+		IntQueue dirtyTiles = chunk.getDirtyTiles();
+		if (dirtyTiles.isEmpty()) {
+			return;
+		}
+
+		int columns = this.mapWidth;
+		Graphics2D g = chunk.getImage().createGraphics();
+		g.translate(-chunk.getChunkX() * CHUNK_SIZE * this.tileSize,
+				-chunk.getChunkY() * CHUNK_SIZE * this.tileSize);
+		while (!dirtyTiles.isEmpty()) {
+			int index = dirtyTiles.remove();
+			int x = index % columns;
+			int y = index / columns;
+			drawTileImage(this.tiles.getTile(x, y), x, y, g);
+		}
 		g.dispose();
-		// draw cached tiles
-		g2.drawImage(img, 0, 0, img.getWidth(), img.getHeight(), null);
+	}
+
+	/**
+	 * Draws the part of the specified chunk's cached image inside the
+	 * viewport.
+	 * 
+	 * @param chunk
+	 *            the chunk to draw.
+	 * @param g2
+	 *            the Graphics2D of where the object is painted.
+	 */
+	private void drawChunk(TileChunk chunk, Graphics2D g2) {
+		BufferedImage image = chunk.getImage();
+		int chunkLeft = chunk.getChunkX() * CHUNK_SIZE * this.tileSize;
+		int chunkTop = chunk.getChunkY() * CHUNK_SIZE * this.tileSize;
+		int left = Math.max(chunkLeft, this.viewport.x);
+		int top = Math.max(chunkTop, this.viewport.y);
+		int right = Math.min(chunkLeft + image.getWidth(), this.viewport.x
+				+ this.viewport.width);
+		int bottom = Math.min(chunkTop + image.getHeight(), this.viewport.y
+				+ this.viewport.height);
+		if (left >= right || top >= bottom) {
+			return;
+		}
+		g2.drawImage(image, left, top, right, bottom, left - chunkLeft, top
+				- chunkTop, right - chunkLeft, bottom - chunkTop, null);
+	}
+
+	/**
+	 * Evicts the least recently drawn chunks until the cache takes no more
+	 * than its limit, keeping at least the specified number of chunks.
+	 * 
+	 * @param keep
+	 *            the number of most recently drawn chunks to keep.
+	 */
+	private void evictChunks(int keep) {
+		Iterator<TileChunk> eldest = this.chunks.values().iterator();
+		while (this.cacheBytes > this.cacheLimit && this.chunks.size() > keep
+				&& eldest.hasNext()) {
+			TileChunk chunk = eldest.next();
+			eldest.remove();
+			this.chunkGrid[chunk.getChunkY() * this.chunkColumns
+					+ chunk.getChunkX()] = null;
+			this.cacheBytes = this.cacheBytes - chunk.getByteSize();
+			this.spareChunk = chunk;
+		}
+	}
+
+	/**
+	 * Sets the most bytes the cached chunks may take. The chunks visible on a
+	 * frame are always kept, even if they take more.
+	 * 
+	 * @param cacheLimit
+	 *            the cache limit in bytes.
+	 */
+	public void setCacheLimit(long cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Returns the most bytes the cached chunks may take.
+	 * 
+	 * @return the cache limit in bytes.
+	 */
+	public long getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Returns the bytes the cached chunks take.
+	 * 
+	 * @return the cache size in bytes.
+	 */
+	public long getCacheBytes() {
+		return this.cacheBytes;
+	}
+
+	/**
+	 * Sets the part of the map that is drawn.
+	 * 
+	 * @param x
+	 *            the x coordinate of the viewport's top left corner in pixels.
+	 * @param y
+	 *            the y coordinate of the viewport's top left corner in pixels.
+	 * @param width
+	 *            the width of the viewport in pixels.
+	 * @param height
+	 *            the height of the viewport in pixels.
+	 */
+	public void setViewport(int x, int y, int width, int height) {
+		this.viewport.setBounds(x, y, width, height);
 	}
 
 	/**
@@ -360,19 +727,54 @@ public class Level {
 	 */
 	public void drawTileImage(int tileValue, int row, int col, Graphics2D g2) {
 		// FIXME: reduce the number of calls to the code below. When does drawImage really need to be called?
-		if (this.mapFlag[row][col]) {return;}
-		BufferedImage image = this.images.get(tileValue);
-		g2.drawImage(image, row * this.tileSize, col * this.tileSize, null);
-		this.mapFlag[row][col] = true;
+		boolean[] drawnTiles = this.chunkGrid[chunkIndexOf(row, col)]
+				.getDrawnTiles();
+		int index = chunkTileIndexOf(row, col);
+		if (drawnTiles[index]) {return;}
+		Sprite image = this.images.get(tileValue);
+		image.draw(g2, row * this.tileSize, col * this.tileSize);
+		drawnTiles[index] = true;
+	}
+
+	/**
+	 * Returns the tileID at the specified coordinates.
+	 * 
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the tileID of the tile.
+	 */
+	public int getTile(int x, int y) {
+		return this.tiles.getTile(x, y);
+	}
+
+	/**
+	 * Returns the number of tiles in the X direction.
+	 * 
+	 * @return the map width in tiles.
+	 */
+	public int getMapWidth() {
+		return this.mapWidth;
+	}
+
+	/**
+	 * Returns the number of tiles in the Y direction.
+	 * 
+	 * @return the map height in tiles.
+	 */
+	public int getMapHeight() {
+		return this.mapHeight;
 	}
 
 	/**
-	 * Gets the Level's array.
+	 * Returns the storage of the map's tiles. Tiles must only be changed
+	 * through updateTile.
 	 * 
-	 * @return the Level's array.
+	 * @return the tile storage.
 	 */
-	public int[][] getMap() {
-		return this.map;
+	TileStorage getTiles() {
+		return this.tiles;
 	}
 
 	/**
@@ -387,9 +789,36 @@ public class Level {
 	 *            the tileID number to update to.
 	 */
 	public void updateTile(int x, int y, int tileID) {
-		this.map[x][y] = tileID;
+		// Touch the chunk before the tile changes, and the chunk above, whose
+		// Gold may fall into the tile.
+		int chunkIndex = chunkIndexOf(x, y);
+		byte[] collisions = touchChunk(chunkIndex);
+		if (y > 0) {
+			touchChunk(chunkIndexOf(x, y - 1));
+		}
+
+		int oldTileID = this.tiles.getTile(x, y);
+		this.tiles.setTile(x, y, tileID);
 		// DONE Add code here.
-		this.mapFlag[x][y] = false;
+		int index = chunkTileIndexOf(x, y);
+		TileChunk chunk = this.chunkGrid[chunkIndex];
+		if (chunk != null && chunk.getDrawnTiles()[index]) {
+			// Queue the tile to be redrawn in its chunk, once. Tiles of
+			// chunks that are not cached are drawn when the chunk is.
+			chunk.getDrawnTiles()[index] = false;
+			chunk.getDirtyTiles().add(y * this.mapWidth + x);
+		}
+		collisions[index] = classifyTile(x, y, tileID);
+
+		// Count the tile and notify the listeners if the tile changed.
+		if (oldTileID != tileID) {
+			this.tileCounts[oldTileID]--;
+			this.tileCounts[tileID]++;
+			for (int i = 0; i < this.tileChangeListeners.size(); i++) {
+				this.tileChangeListeners.get(i).tileChanged(x, y, oldTileID,
+						tileID);
+			}
+		}
 	}
 
 	/**
@@ -401,66 +830,71 @@ public class Level {
 	 * @return the number of emerald tiles on the map
 	 */
 	public int getEmeraldCount() {
-		int counter = 0;
-		for (int r = 0; r < this.map.length; r++) {
-			for (int c = 0; c < this.map[r].length; c++) {
-				if (this.map[r][c] == this.EMERALD) {
-					counter++;
-				}
-			}
-		}
-		return counter;
+		return getTileCount(this.EMERALD);
 	}
 
 	/**
-	 * Returns the barriers ID arraylist.
+	 * Returns the number of tiles with the specified tileID on the map. The
+	 * counts are kept up to date by updateTile, so no tiles are scanned. With
+	 * the digger.checkTileCounts system property set, the counts are checked
+	 * against the map every TILE_COUNT_CHECK_INTERVAL queries.
 	 * 
-	 * @return the barriers ID arraylist.
+	 * @param tileID
+	 *            the tileID to count.
+	 * @return the number of tiles with the tileID.
 	 */
-	public ArrayList<Integer> getBarriersIDList() {
-		return this.BARRIERS;
+	public int getTileCount(int tileID) {
+		if (CHECK_TILE_COUNTS
+				&& ++this.countQueries >= TILE_COUNT_CHECK_INTERVAL) {
+			this.countQueries = 0;
+			checkTileCounts();
+		}
+		if (tileID < 0 || tileID >= this.tileCounts.length) {
+			return 0;
+		}
+		return this.tileCounts[tileID];
 	}
 
 	/**
-	 * Converts a given integer number to the correlating barrier number. Mainly
-	 * used in score conversion in LevelState.
+	 * Counts the tiles of each tileID by scanning the whole map. Only used to
+	 * check the kept counts.
 	 * 
-	 * @param numberToConvert
-	 *            the integer number to convert.
-	 * @return the corresponding barrier number.
+	 * @return the number of tiles of each tileID.
 	 */
-	public int convertToTileID(int numberToConvert) {
-		if (numberToConvert == 0) {
-			return this.BARRIER_0;
-		}
-		if (numberToConvert == 1) {
-			return this.BARRIER_1;
-		}
-		if (numberToConvert == 2) {
-			return this.BARRIER_2;
-		}
-		if (numberToConvert == 3) {
-			return this.BARRIER_3;
-		}
-		if (numberToConvert == 4) {
-			return this.BARRIER_4;
-		}
-		if (numberToConvert == 5) {
-			return this.BARRIER_5;
-		}
-		if (numberToConvert == 6) {
-			return this.BARRIER_6;
-		}
-		if (numberToConvert == 7) {
-			return this.BARRIER_7;
-		}
-		if (numberToConvert == 8) {
-			return this.BARRIER_8;
+	private int[] countTiles() {
+		int[] counts = new int[LevelFile.MAX_TILE_ID + 1];
+		for (int y = 0; y < this.mapHeight; y++) {
+			for (int x = 0; x < this.mapWidth; x++) {
+				counts[this.tiles.getTile(x, y)]++;
+			}
 		}
-		if (numberToConvert == 9) {
-			return this.BARRIER_9;
+		return counts;
+	}
+
+	/**
+	 * Checks the kept tile counts against a scan of the whole map.
+	 * 
+	 * @throws IllegalStateException
+	 *             if a count does not match the map.
+	 */
+	public void checkTileCounts() {
+		int[] counts = countTiles();
+		for (int tileID = 0; tileID < counts.length; tileID++) {
+			if (counts[tileID] != this.tileCounts[tileID]) {
+				throw new IllegalStateException("TileID " + tileID
+						+ " is counted " + this.tileCounts[tileID]
+						+ " times but the map has " + counts[tileID] + ".");
+			}
 		}
-		return -1;
+	}
+
+	/**
+	 * Returns the barriers ID arraylist.
+	 * 
+	 * @return the barriers ID arraylist.
+	 */
+	public ArrayList<Integer> getBarriersIDList() {
+		return this.BARRIERS;
 	}
 
 	// Old
@@ -0,0 +1,441 @@
+package objects;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads and writes the tile maps of the levels. A level is stored in a compact
+ * binary file: a header of the magic number, the format version, the width,
+ * the height and the number of tileIDs the level uses, then a pair of the
+ * tileID and its number of tiles for each of those tileIDs, all as big-endian
+ * ints, followed by one unsigned byte per tile, row by row. The tile counts
+ * let a mapped level be opened without reading its tiles. The binary files
+ * are generated from the text levels by running this class, and the text
+ * levels are still read when a level has no binary file or its binary file
+ * is older than the text level. Binary levels of at least MAPPED_TILE_COUNT
+ * tiles that are files on disk are memory-mapped instead of read.
+ *
+ * Maps are returned as TileStorage, which Level reads its tiles from.
+ */
+public class LevelFile {
+	// Format Constants.
+	public static final int MAGIC = 0x44474C56; // "DGLV", marks a level file.
+	public static final int VERSION = 3; // The version of the format.
+	public static final int MAX_TILE_ID = 255; // The largest tileID a byte
+												// holds.
+	public static final int HEADER_SIZE = 20; // The bytes of the header
+												// before the tile counts.
+	public static final int TILE_COUNT_SIZE = 8; // The bytes of a tileID and
+													// its count.
+	public static final int MAPPED_TILE_COUNT = 1 << 20; // The fewest tiles
+															// of a mapped
+															// level.
+	public static final String BINARY_DIRECTORY = "/level/"; // The resource
+																// directory of
+																// the binary
+																// levels.
+	public static final String BINARY_EXTENSION = ".lvl"; // The extension of
+															// the binary
+															// levels.
+	private static final String TEXT_EXTENSION = ".txt"; // The extension of the
+															// text levels.
+	private static final long STALE_TIME = 2000; // The milliseconds a text
+													// level must be newer
+													// than its binary level to
+													// be edited since.
+
+	/**
+	 * Converts the text levels to binary levels. The first argument is the
+	 * directory of the text levels and the second the output directory. They
+	 * default to the Resources directories of the project.
+	 *
+	 * @param args
+	 *            the text level directory and the binary level directory.
+	 */
+	public static void main(String[] args) {
+		File textDirectory = new File("Resources/text/level");
+		File binaryDirectory = new File("Resources/level");
+		if (args.length >= 2) {
+			textDirectory = new File(args[0]);
+			binaryDirectory = new File(args[1]);
+		}
+		binaryDirectory.mkdirs();
+
+		File[] files = textDirectory.listFiles();
+		if (files == null) {
+			System.out.println("Error: " + textDirectory + " was not found.");
+			return;
+		}
+		for (int i = 0; i < files.length; i++) {
+			String name = files[i].getName();
+			if (!name.startsWith("Level ") || !name.endsWith(TEXT_EXTENSION)) {
+				continue;
+			}
+			File binaryFile = new File(binaryDirectory, getBinaryName(name)
+					.substring(BINARY_DIRECTORY.length()));
+			try {
+				InputStream input = new FileInputStream(files[i]);
+				ArrayTileStorage map = readText(input);
+				input.close();
+				OutputStream output = new FileOutputStream(binaryFile);
+				writeBinary(map, output);
+				output.close();
+				System.out.println("Converted " + files[i] + " to "
+						+ binaryFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.out.println("Error: " + files[i]
+						+ " could not be converted.");
+			}
+		}
+	}
+
+	/**
+	 * Returns the resource name of the binary level of a level file, such as
+	 * "/level/Level 0.lvl" for "/text/level/Level 0.txt".
+	 *
+	 * @param fileName
+	 *            the text or binary level file name.
+	 * @return the binary level resource name.
+	 */
+	public static String getBinaryName(String fileName) {
+		if (fileName.endsWith(BINARY_EXTENSION)) {
+			return fileName;
+		}
+		String name = fileName.substring(fileName.lastIndexOf('/') + 1);
+		if (name.endsWith(TEXT_EXTENSION)) {
+			name = name.substring(0, name.length() - TEXT_EXTENSION.length());
+		}
+		return BINARY_DIRECTORY + name + BINARY_EXTENSION;
+	}
+
+	/**
+	 * Opens the tiles of a level. A large binary level on disk is
+	 * memory-mapped, and any other level is loaded into an array. The level
+	 * may be a resource or the path of a binary level file.
+	 *
+	 * @param fileName
+	 *            the level, such as "/text/level/Level 0.txt".
+	 * @return the tiles of the level.
+	 * @throws IOException
+	 *             if the level is not found or is not valid.
+	 */
+	public static TileStorage open(String fileName) throws IOException {
+		File file = findFile(getBinaryName(fileName));
+		if (file == null || isStale(fileName)) {
+			return load(fileName);
+		}
+		// The tile counts take at most a few kilobytes, so the file size
+		// tells whether the level is large enough to map.
+		if (file.length() - HEADER_SIZE >= MAPPED_TILE_COUNT) {
+			return new MappedTileStorage(file);
+		}
+		InputStream input = new FileInputStream(file);
+		try {
+			return readBinary(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Returns the file on disk of a binary level, which is either a path or a
+	 * resource that is not inside a jar.
+	 *
+	 * @param binaryName
+	 *            the path or resource name of the binary level.
+	 * @return the file of the level, or null if it is not a file on disk.
+	 */
+	private static File findFile(String binaryName) {
+		File file = new File(binaryName);
+		if (file.isFile()) {
+			return file;
+		}
+		URL resource = LevelFile.class.getResource(binaryName);
+		if (resource == null || !resource.getProtocol().equals("file")) {
+			return null;
+		}
+		try {
+			return new File(resource.toURI());
+		} catch (URISyntaxException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the text level was edited after its binary level was
+	 * converted from it. Only levels whose files are both on disk are
+	 * compared, since a jar holds the files as they were built together.
+	 * Times closer than STALE_TIME apart count as equal, since a checkout
+	 * writes both files at about the same time.
+	 *
+	 * @param fileName
+	 *            the text level resource, such as "/text/level/Level 0.txt".
+	 * @return true if the binary level is older than the text level.
+	 */
+	private static boolean isStale(String fileName) {
+		if (fileName.endsWith(BINARY_EXTENSION)) {
+			return false;
+		}
+		File textFile = findFile(fileName);
+		File binaryFile = findFile(getBinaryName(fileName));
+		if (textFile == null || binaryFile == null) {
+			return false;
+		}
+		return textFile.lastModified() - binaryFile.lastModified() > STALE_TIME;
+	}
+
+	/**
+	 * Loads the map of a level resource. The binary level is read if there is
+	 * one, and otherwise the text level is parsed. A binary level older than
+	 * its text level is skipped with a warning, so an edited text level is
+	 * played before it is converted again.
+	 *
+	 * @param fileName
+	 *            the text level resource, such as "/text/level/Level 0.txt".
+	 * @return the map of the level.
+	 * @throws IOException
+	 *             if the level is not found or is not valid.
+	 */
+	public static ArrayTileStorage load(String fileName) throws IOException {
+		InputStream input = null;
+		if (isStale(fileName)) {
+			System.out.println("Warning: " + getBinaryName(fileName)
+					+ " is older than " + fileName + ". Run objects.LevelFile"
+					+ " to convert it again.");
+		} else {
+			input = LevelFile.class
+					.getResourceAsStream(getBinaryName(fileName));
+		}
+		if (input != null) {
+			try {
+				return readBinary(input);
+			} finally {
+				input.close();
+			}
+		}
+
+		// Fall back to the text level.
+		input = LevelFile.class.getResourceAsStream(fileName);
+		if (input == null) {
+			throw new IOException("Level " + fileName + " was not found.");
+		}
+		try {
+			return readText(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Reads a binary level. The header, the tile counts and the tiles are each
+	 * read into a ByteBuffer in one go, and the tile buffer's array becomes
+	 * the map.
+	 *
+	 * @param input
+	 *            the stream of the binary level.
+	 * @return the map of the level.
+	 * @throws IOException
+	 *             if the level is not a valid binary level.
+	 */
+	public static ArrayTileStorage readBinary(InputStream input)
+			throws IOException {
+		ReadableByteChannel channel = Channels.newChannel(input);
+
+		// Read and check the header.
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(channel, header);
+		int[] size = readHeader(header);
+		int width = size[0];
+		int height = size[1];
+		ByteBuffer counts = ByteBuffer.allocate(TILE_COUNT_SIZE * size[2]);
+		readFully(channel, counts);
+		readTileCounts(counts, size[2], width, height);
+
+		// Read the tiles, row by row.
+		ByteBuffer tiles = ByteBuffer.allocate(width * height);
+		readFully(channel, tiles);
+		return new ArrayTileStorage(width, height, tiles.array());
+	}
+
+	/**
+	 * Reads and checks the header of a binary level.
+	 *
+	 * @param header
+	 *            the buffer holding the header.
+	 * @return the width and the height of the level, and the number of tileIDs
+	 *         with a tile count.
+	 * @throws IOException
+	 *             if the header is not a valid header.
+	 */
+	public static int[] readHeader(ByteBuffer header) throws IOException {
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not a level file.");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported level version " + version + ".");
+		}
+		int width = header.getInt();
+		int height = header.getInt();
+		if (width <= 0 || height <= 0) {
+			throw new IOException("Invalid level size " + width + "x" + height
+					+ ".");
+		}
+		int tileIDCount = header.getInt();
+		if (tileIDCount < 0 || tileIDCount > MAX_TILE_ID + 1) {
+			throw new IOException("Invalid number of tileIDs " + tileIDCount
+					+ ".");
+		}
+		return new int[] { width, height, tileIDCount };
+	}
+
+	/**
+	 * Reads and checks the tile counts of a binary level, which follow the
+	 * header. A tileID without a count has no tiles.
+	 *
+	 * @param buffer
+	 *            the buffer holding the tile counts.
+	 * @param tileIDCount
+	 *            the number of tileIDs with a count, from readHeader.
+	 * @param width
+	 *            the width of the level.
+	 * @param height
+	 *            the height of the level.
+	 * @return the number of tiles of each tileID.
+	 * @throws IOException
+	 *             if a tileID is not valid or the counts do not add up to the
+	 *             size of the level.
+	 */
+	public static int[] readTileCounts(ByteBuffer buffer, int tileIDCount,
+			int width, int height) throws IOException {
+		int[] counts = new int[MAX_TILE_ID + 1];
+		long total = 0;
+		for (int i = 0; i < tileIDCount; i++) {
+			int tileID = buffer.getInt();
+			int count = buffer.getInt();
+			if (tileID < 0 || tileID > MAX_TILE_ID || counts[tileID] != 0) {
+				throw new IOException("Invalid tileID " + tileID + ".");
+			}
+			if (count <= 0) {
+				throw new IOException("Invalid count of tileID " + tileID
+						+ ".");
+			}
+			counts[tileID] = count;
+			total = total + count;
+		}
+		if (total != (long) width * height) {
+			throw new IOException("The tile counts add up to " + total
+					+ " instead of " + (long) width * height + ".");
+		}
+		return counts;
+	}
+
+	/**
+	 * Fills a ByteBuffer from a channel and flips it for reading.
+	 *
+	 * @param channel
+	 *            the channel to read from.
+	 * @param buffer
+	 *            the buffer to fill.
+	 * @throws IOException
+	 *             if the channel ends before the buffer is full.
+	 */
+	public static void readFully(ReadableByteChannel channel,
+			ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("The level file is truncated.");
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Writes a map as a binary level.
+	 *
+	 * @param map
+	 *            the map to write.
+	 * @param output
+	 *            the stream to write to.
+	 * @throws IOException
+	 *             if the stream fails.
+	 */
+	public static void writeBinary(TileStorage map, OutputStream output)
+			throws IOException {
+		int width = map.getWidth();
+		int height = map.getHeight();
+
+		// Only the tileIDs the level uses get a count.
+		int[] counts = map.countTiles();
+		int tileIDCount = 0;
+		for (int tileID = 0; tileID < counts.length; tileID++) {
+			if (counts[tileID] > 0) {
+				tileIDCount++;
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + TILE_COUNT_SIZE
+				* tileIDCount + width * height);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(width);
+		buffer.putInt(height);
+		buffer.putInt(tileIDCount);
+		for (int tileID = 0; tileID < counts.length; tileID++) {
+			if (counts[tileID] > 0) {
+				buffer.putInt(tileID);
+				buffer.putInt(counts[tileID]);
+			}
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				buffer.put((byte) map.getTile(x, y));
+			}
+		}
+		output.write(buffer.array());
+	}
+
+	/**
+	 * Reads a text level: the width and the height on their own lines,
+	 * followed by a line of space separated tileIDs per row.
+	 *
+	 * @param input
+	 *            the stream of the text level.
+	 * @return the map of the level.
+	 * @throws IOException
+	 *             if a tileID does not fit in a byte or the stream fails.
+	 */
+	public static ArrayTileStorage readText(InputStream input)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input));
+		int width = Integer.parseInt(reader.readLine().trim());
+		int height = Integer.parseInt(reader.readLine().trim());
+
+		ArrayTileStorage map = new ArrayTileStorage(width, height);
+		for (int y = 0; y < height; y++) {
+			// Get the line of tileIDs and split it at the spaces.
+			String[] values = reader.readLine().trim().split(" ");
+			for (int x = 0; x < width; x++) {
+				int tileID = Integer.parseInt(values[x]);
+				if (tileID < 0 || tileID > MAX_TILE_ID) {
+					throw new IOException("TileID " + tileID + " at (" + x
+							+ ", " + y + ") does not fit in a byte.");
+				}
+				map.setTile(x, y, tileID);
+			}
+		}
+		return map;
+	}
+}
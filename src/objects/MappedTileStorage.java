@@ -0,0 +1,167 @@
+package objects;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A TileStorage that reads the tiles straight from a memory-mapped binary
+ * level file, so opening a level of any size only reads its header. The
+ * operating system pages the file in as tiles are read. The file is never
+ * written: a changed tile copies its page of tiles into an overlay on the
+ * heap, and the overlay is read instead of the file from then on. The tile
+ * counts are read from the header and kept up to date as tiles change.
+ */
+public class MappedTileStorage implements TileStorage {
+	// Constants.
+	private static final int PAGE_BITS = 12; // The log2 of the page size.
+	private static final int PAGE_SIZE = 1 << PAGE_BITS; // The tiles in a
+															// page.
+	private static final int PAGE_MASK = PAGE_SIZE - 1; // The mask of a tile
+														// in its page.
+
+	// Field Variables.
+	private int width; // The number of tiles in the X direction.
+	private int height; // The number of tiles in the Y direction.
+	private MappedByteBuffer tiles; // The mapped tiles, row by row.
+	private byte[][] pages; // The changed pages of tiles, null if unchanged.
+	private int pageCount; // The number of changed pages.
+	private int[] tileCounts; // The number of tiles of each tileID.
+
+	/**
+	 * Constructs a MappedTileStorage of the specified binary level file.
+	 *
+	 * @param file
+	 *            the binary level file.
+	 * @throws IOException
+	 *             if the file cannot be mapped or is not a valid level.
+	 */
+	public MappedTileStorage(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+
+			// Read and check the header.
+			ByteBuffer header = ByteBuffer.allocate(LevelFile.HEADER_SIZE);
+			LevelFile.readFully(channel, header);
+			int[] size = LevelFile.readHeader(header);
+			this.width = size[0];
+			this.height = size[1];
+			ByteBuffer counts = ByteBuffer.allocate(LevelFile.TILE_COUNT_SIZE
+					* size[2]);
+			LevelFile.readFully(channel, counts);
+			this.tileCounts = LevelFile.readTileCounts(counts, size[2],
+					this.width, this.height);
+
+			// Map the tiles. The mapping stays valid after the file is
+			// closed.
+			long tileCount = (long) this.width * this.height;
+			if (tileCount > Integer.MAX_VALUE) {
+				throw new IOException("The level is too large to map.");
+			}
+			long offset = channel.position();
+			if (offset + tileCount > channel.size()) {
+				throw new IOException("The level file is truncated.");
+			}
+			this.tiles = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+					tileCount);
+		} finally {
+			input.close();
+		}
+		this.pages = new byte[(this.width * this.height + PAGE_SIZE - 1)
+				/ PAGE_SIZE][];
+		this.pageCount = 0;
+	}
+
+	@Override
+	public int getWidth() {
+		return this.width;
+	}
+
+	@Override
+	public int getHeight() {
+		return this.height;
+	}
+
+	@Override
+	public int getTile(int x, int y) {
+		int index = toIndex(x, y);
+		byte[] page = this.pages[index >> PAGE_BITS];
+		if (page != null) {
+			return page[index & PAGE_MASK] & 0xFF;
+		}
+		return this.tiles.get(index) & 0xFF;
+	}
+
+	@Override
+	public void setTile(int x, int y, int tileID) {
+		if (tileID < 0 || tileID > LevelFile.MAX_TILE_ID) {
+			throw new IllegalArgumentException("TileID " + tileID
+					+ " does not fit in a byte.");
+		}
+		int index = toIndex(x, y);
+		byte[] page = this.pages[index >> PAGE_BITS];
+		if (page == null) {
+			page = copyPage(index >> PAGE_BITS);
+		}
+		this.tileCounts[page[index & PAGE_MASK] & 0xFF]--;
+		this.tileCounts[tileID]++;
+		page[index & PAGE_MASK] = (byte) tileID;
+	}
+
+	@Override
+	public int[] countTiles() {
+		return this.tileCounts.clone();
+	}
+
+	/**
+	 * Returns the index of the tile at the specified coordinates in the file.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the index of the tile.
+	 * @throws IndexOutOfBoundsException
+	 *             if the coordinates are outside the map.
+	 */
+	private int toIndex(int x, int y) {
+		if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+			throw new IndexOutOfBoundsException("Tile " + x + ", " + y
+					+ " is outside the " + this.width + " by " + this.height
+					+ " map.");
+		}
+		return y * this.width + x;
+	}
+
+	/**
+	 * Copies a page of tiles from the file into the overlay.
+	 *
+	 * @param pageIndex
+	 *            the index of the page.
+	 * @return the copied page.
+	 */
+	private byte[] copyPage(int pageIndex) {
+		int start = pageIndex * PAGE_SIZE;
+		int length = Math.min(PAGE_SIZE, this.width * this.height - start);
+		byte[] page = new byte[PAGE_SIZE];
+		for (int i = 0; i < length; i++) {
+			page[i] = this.tiles.get(start + i);
+		}
+		this.pages[pageIndex] = page;
+		this.pageCount++;
+		return page;
+	}
+
+	/**
+	 * Returns the number of bytes the overlay of changed pages takes.
+	 *
+	 * @return the size of the overlay in bytes.
+	 */
+	public long getOverlayBytes() {
+		return (long) this.pageCount * PAGE_SIZE;
+	}
+}
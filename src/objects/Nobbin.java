@@ -33,7 +33,7 @@ public class Nobbin extends Enemy {
 	 */
 	public Nobbin(Level level, Digger player, Coordinate tileCoordinate) {
 		super(level, player);
-		calculateHeuristic();
+		prepareSearch();
 		this.tilePositionX = tileCoordinate.getX();
 		this.tilePositionY = tileCoordinate.getY();
 	}
@@ -0,0 +1,172 @@
+package objects;
+
+import toolObjects.IntQueue;
+import toolObjects.PagedIntArray;
+
+/**
+ * A reusable search workspace for path finding on a Level. Tiles are
+ * addressed by a single index, row by row like the Level's tiles. Parent
+ * links are stored in a paged int array and a generation stamp marks the
+ * tiles visited by the current search, so starting a new search needs
+ * neither allocation nor a clearing pass. The pages are only allocated where
+ * searches visit tiles, so a search that stays near its start takes little
+ * memory on a large map. The open tiles are kept in a ring buffer queue.
+ */
+public class PathWorkspace {
+	// Constants.
+	public static final int NO_PARENT = -1; // The parent of a starting tile.
+
+	// Field Variables.
+	private int columns; // The number of tiles in the X direction.
+	private int rows; // The number of tiles in the Y direction.
+	private PagedIntArray parent; // The tile index each tile was reached
+									// from.
+	private PagedIntArray visited; // The generation each tile was last
+									// visited in.
+	private IntQueue open; // The queue of tile indices to check.
+	private int generation; // The generation of the current search.
+
+	/**
+	 * Constructs a PathWorkspace for a map of the specified size.
+	 *
+	 * @param columns
+	 *            the number of tiles in the X direction.
+	 * @param rows
+	 *            the number of tiles in the Y direction.
+	 */
+	public PathWorkspace(int columns, int rows) {
+		this.columns = columns;
+		this.rows = rows;
+		this.parent = new PagedIntArray(columns * rows);
+		this.visited = new PagedIntArray(columns * rows);
+		this.open = new IntQueue(columns + rows);
+
+		// Start past the generation of the zeroed stamps, so that no tile is
+		// visited yet.
+		this.generation = 1;
+	}
+
+	/**
+	 * Starts a new search. Every tile becomes unvisited without
+	 * touching the arrays, unless the generation counter wraps around.
+	 *
+	 */
+	public void reset() {
+		this.generation++;
+		if (this.generation == Integer.MAX_VALUE) {
+			release();
+		}
+		this.open.clear();
+	}
+
+	/**
+	 * Starts a new search and frees the pages of the arrays. Every tile
+	 * becomes unvisited.
+	 *
+	 */
+	public void release() {
+		this.parent.clear();
+		this.visited.clear();
+		this.generation = 1;
+		this.open.clear();
+	}
+
+	/**
+	 * Marks the tile at the specified index as visited in the current search
+	 * and links it to the tile it was reached from.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 * @param parentIndex
+	 *            the index of the tile it was reached from, or NO_PARENT.
+	 */
+	public void visit(int index, int parentIndex) {
+		this.visited.set(index, this.generation);
+		this.parent.set(index, parentIndex);
+	}
+
+	/**
+	 * Returns whether the tile at the specified index was visited in the
+	 * current search.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 * @return true if it was visited, false if not.
+	 */
+	public boolean isVisited(int index) {
+		return this.visited.get(index) == this.generation;
+	}
+
+	/**
+	 * Returns the queue of tile indices to check in the current search.
+	 *
+	 * @return the open queue.
+	 */
+	public IntQueue getOpen() {
+		return this.open;
+	}
+
+	/**
+	 * Returns the index of the tile the specified tile was reached from.
+	 *
+	 * @param index
+	 *            the index of the tile.
+	 * @return the parent tile index, or NO_PARENT.
+	 */
+	public int getParent(int index) {
+		return this.parent.get(index);
+	}
+
+	/**
+	 * Converts a tile coordinate into a tile index.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the tile index.
+	 */
+	public int toIndex(int x, int y) {
+		return y * this.columns + x;
+	}
+
+	/**
+	 * Returns the x coordinate of a tile index.
+	 *
+	 * @param index
+	 *            the tile index.
+	 * @return the x coordinate.
+	 */
+	public int toX(int index) {
+		return index % this.columns;
+	}
+
+	/**
+	 * Returns the y coordinate of a tile index.
+	 *
+	 * @param index
+	 *            the tile index.
+	 * @return the y coordinate.
+	 */
+	public int toY(int index) {
+		return index / this.columns;
+	}
+
+	/**
+	 * Returns the number of tiles the workspace covers.
+	 *
+	 * @return the number of tiles.
+	 */
+	public int getSize() {
+		return this.columns * this.rows;
+	}
+
+	/**
+	 * Returns the number of tiles in the allocated pages of the workspace.
+	 *
+	 * @return the number of tiles with memory allocated.
+	 */
+	public int getAllocatedSize() {
+		return this.visited.getAllocatedSize();
+	}
+}
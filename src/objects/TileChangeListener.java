@@ -0,0 +1,20 @@
+package objects;
+
+/**
+ * An object that is notified whenever a tile on a Level is updated.
+ */
+public interface TileChangeListener {
+	/**
+	 * Called after the tile at the specified coordinates has been updated.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @param oldTileID
+	 *            the tileID before the update.
+	 * @param newTileID
+	 *            the tileID after the update.
+	 */
+	public void tileChanged(int x, int y, int oldTileID, int newTileID);
+}
@@ -0,0 +1,113 @@
+package objects;
+
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import toolObjects.IntQueue;
+import toolObjects.SpriteAtlas;
+
+/**
+ * A cached image of a square block of a Level's tiles. A chunk is drawn once
+ * when it first becomes visible, and afterwards only the tiles changed since
+ * it was last drawn are drawn again. Each tile of the chunk is flagged once
+ * it is drawn in the image, so a changed tile is only queued once.
+ */
+public class TileChunk {
+	private int chunkX; // The x coordinate of the chunk in chunks.
+	private int chunkY; // The y coordinate of the chunk in chunks.
+	private BufferedImage image; // The cached image of the chunk's tiles.
+	private IntQueue dirtyTiles; // The indices of the tiles to redraw.
+	private boolean[] drawnTiles; // True for each tile drawn in the image,
+									// row by row within the chunk.
+
+	/**
+	 * Constructs a TileChunk with an image of the specified size.
+	 *
+	 * @param chunkX
+	 *            the x coordinate of the chunk in chunks.
+	 * @param chunkY
+	 *            the y coordinate of the chunk in chunks.
+	 * @param width
+	 *            the width of the chunk's image in pixels.
+	 * @param height
+	 *            the height of the chunk's image in pixels.
+	 */
+	public TileChunk(int chunkX, int chunkY, int width, int height) {
+		this.chunkX = chunkX;
+		this.chunkY = chunkY;
+		this.image = SpriteAtlas.createCompatibleImage(width, height,
+				Transparency.OPAQUE);
+		this.dirtyTiles = new IntQueue(16);
+		this.drawnTiles = new boolean[Level.CHUNK_SIZE * Level.CHUNK_SIZE];
+	}
+
+	/**
+	 * Moves the chunk to other chunk coordinates so that its image can be
+	 * reused. The image must be drawn again before it is used.
+	 *
+	 * @param chunkX
+	 *            the new x coordinate of the chunk in chunks.
+	 * @param chunkY
+	 *            the new y coordinate of the chunk in chunks.
+	 */
+	public void reset(int chunkX, int chunkY) {
+		this.chunkX = chunkX;
+		this.chunkY = chunkY;
+		this.dirtyTiles.clear();
+	}
+
+	/**
+	 * Returns the x coordinate of the chunk.
+	 *
+	 * @return the x coordinate in chunks.
+	 */
+	public int getChunkX() {
+		return this.chunkX;
+	}
+
+	/**
+	 * Returns the y coordinate of the chunk.
+	 *
+	 * @return the y coordinate in chunks.
+	 */
+	public int getChunkY() {
+		return this.chunkY;
+	}
+
+	/**
+	 * Returns the cached image of the chunk's tiles.
+	 *
+	 * @return the cached image.
+	 */
+	public BufferedImage getImage() {
+		return this.image;
+	}
+
+	/**
+	 * Returns the queue of the indices of the tiles to redraw.
+	 *
+	 * @return the dirty tile queue.
+	 */
+	public IntQueue getDirtyTiles() {
+		return this.dirtyTiles;
+	}
+
+	/**
+	 * Returns the flags of the tiles drawn in the image, row by row within the
+	 * chunk.
+	 *
+	 * @return the drawn tile flags.
+	 */
+	public boolean[] getDrawnTiles() {
+		return this.drawnTiles;
+	}
+
+	/**
+	 * Returns the number of bytes the chunk's image takes.
+	 *
+	 * @return the size of the image in bytes.
+	 */
+	public long getByteSize() {
+		return 4L * this.image.getWidth() * this.image.getHeight();
+	}
+}
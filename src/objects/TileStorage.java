@@ -0,0 +1,58 @@
+package objects;
+
+/**
+ * The tileIDs of a Level's map. A Level only reads and writes its tiles
+ * through a TileStorage, so a map can be kept in an array or read straight
+ * from a mapped level file.
+ */
+public interface TileStorage {
+	/**
+	 * Returns the number of tiles in the X direction.
+	 *
+	 * @return the width of the map in tiles.
+	 */
+	public int getWidth();
+
+	/**
+	 * Returns the number of tiles in the Y direction.
+	 *
+	 * @return the height of the map in tiles.
+	 */
+	public int getHeight();
+
+	/**
+	 * Returns the tileID at the specified coordinates.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @return the tileID of the tile.
+	 * @throws IndexOutOfBoundsException
+	 *             if the coordinates are outside the map.
+	 */
+	public int getTile(int x, int y);
+
+	/**
+	 * Sets the tileID at the specified coordinates.
+	 *
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @param tileID
+	 *            the new tileID of the tile.
+	 * @throws IndexOutOfBoundsException
+	 *             if the coordinates are outside the map.
+	 */
+	public void setTile(int x, int y, int tileID);
+
+	/**
+	 * Returns the number of tiles of each tileID on the map. The array is a
+	 * new copy that the caller may change.
+	 *
+	 * @return the number of tiles of each tileID, indexed by tileID up to
+	 *         LevelFile.MAX_TILE_ID.
+	 */
+	public int[] countTiles();
+}
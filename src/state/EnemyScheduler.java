@@ -0,0 +1,376 @@
+package state;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import objects.Enemy;
+import objects.FlowField;
+
+/**
+ * Decides which Enemies plan a new path on a frame. An Enemy only plans when
+ * it is about to move or the player changed tile, and the planning of a frame
+ * stops once its time budget is spent. The Enemies left over are planned
+ * first on the next frame, so replanning is spread across frames instead of
+ * all Enemies replanning on the same tick.
+ * 
+ * Planning is parallel by default. It plans the Enemies in batches of one per
+ * thread of a ForkJoinPool, under the same budget as serial planning: the
+ * flow fields of the terrain classes of a batch are searched at the same
+ * time, and then the Enemies of the batch follow them at the same time. Each
+ * batch is joined before the next one starts and before the frame continues,
+ * so Enemies move on the same paths as when they are planned one after
+ * another. The tasks are made once and reused on every frame. For debugging,
+ * setParallel or the digger.serialPlanning system property plans the Enemies
+ * one after another on the game thread instead.
+ * 
+ * The flow fields read the Level's live map, so plan must be called on the
+ * game thread, and nothing may change the map until it returns. Key input
+ * is queued by the GamePanel and applied on the game thread before the
+ * update that plans, for this reason.
+ */
+public class EnemyScheduler {
+	// Field Constants.
+	public static final long DEFAULT_BUDGET_MICROS = 2000; // The default
+															// planning time
+															// per frame.
+	// The threads planning in parallel, shared by every LevelState.
+	private static final ForkJoinPool PLANNING_POOL = new ForkJoinPool();
+
+	// Field Variables.
+	private long budgetMicros; // The planning time per frame in microseconds.
+	private int nextIndex; // The Enemy index the next frame starts from.
+	private boolean isParallel; // Whether the paths are planned in parallel.
+	private ArrayList<Enemy> planned; // The Enemies of the planned batch.
+	private ArrayList<FlowField> fields; // The flow fields the planned Enemies
+											// follow.
+	private PlanningTask planningTask; // Plans a batch in parallel.
+
+	/**
+	 * Constructs an EnemyScheduler with the specified planning budget.
+	 *
+	 * @param budgetMicros
+	 *            the planning time per frame in microseconds.
+	 */
+	public EnemyScheduler(long budgetMicros) {
+		this.budgetMicros = budgetMicros;
+		this.nextIndex = 0;
+		this.isParallel = !Boolean.getBoolean("digger.serialPlanning");
+		this.planned = new ArrayList<Enemy>();
+		this.fields = new ArrayList<FlowField>();
+		this.planningTask = new PlanningTask(this.planned, this.fields,
+				PLANNING_POOL.getParallelism());
+	}
+
+	/**
+	 * Plans the paths of the Enemies that need one, in parallel or in serial
+	 * depending on the mode.
+	 *
+	 * @param enemies
+	 *            the Enemies to plan for.
+	 */
+	public void plan(ArrayList<Enemy> enemies) {
+		if (this.isParallel) {
+			planParallel(enemies);
+		} else {
+			planSerial(enemies);
+		}
+	}
+
+	/**
+	 * Plans the paths of the Enemies that need one on the planning pool, a
+	 * batch of one Enemy per thread at a time, in turn, until the planning
+	 * budget of the frame is spent. At least one batch is planned on every
+	 * frame, so no Enemy waits forever.
+	 *
+	 * @param enemies
+	 *            the Enemies to plan for.
+	 */
+	private void planParallel(ArrayList<Enemy> enemies) {
+		int size = enemies.size();
+		if (size == 0) {
+			return;
+		}
+
+		long budgetNanos = this.budgetMicros * 1000;
+		long start = System.nanoTime();
+		int first = this.nextIndex % size;
+		int batchSize = PLANNING_POOL.getParallelism();
+
+		int i = 0;
+		while (i < size) {
+			// Find the next Enemies that need a path and their flow fields.
+			this.planned.clear();
+			this.fields.clear();
+			while (i < size && this.planned.size() < batchSize) {
+				Enemy enemy = enemies.get((first + i) % size);
+				i++;
+				if (!enemy.needsPath()) {
+					continue;
+				}
+				enemy.prepareSearch();
+				this.planned.add(enemy);
+				if (!this.fields.contains(enemy.getFlowField())) {
+					this.fields.add(enemy.getFlowField());
+				}
+			}
+			if (this.planned.isEmpty()) {
+				return;
+			}
+
+			// Every planned Enemy is on the same level and targets the same
+			// tile.
+			Enemy planned = this.planned.get(0);
+			this.planningTask.reinitialize();
+			this.planningTask.setTarget(planned.getPlayerPositionX(),
+					planned.getPlayerPositionY());
+			PLANNING_POOL.invoke(this.planningTask);
+
+			// Stop once the budget is spent and continue after this batch on
+			// the next frame.
+			if (System.nanoTime() - start >= budgetNanos) {
+				this.nextIndex = first + i;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Plans the paths of the Enemies that need one, in turn, until the
+	 * planning budget of the frame is spent. At least one Enemy is planned on
+	 * every frame, so no Enemy waits forever.
+	 *
+	 * @param enemies
+	 *            the Enemies to plan for.
+	 */
+	private void planSerial(ArrayList<Enemy> enemies) {
+		int size = enemies.size();
+		if (size == 0) {
+			return;
+		}
+
+		long budgetNanos = this.budgetMicros * 1000;
+		long start = System.nanoTime();
+		int first = this.nextIndex % size;
+
+		for (int i = 0; i < size; i++) {
+			int index = (first + i) % size;
+			Enemy enemy = enemies.get(index);
+			if (!enemy.needsPath()) {
+				continue;
+			}
+			enemy.run();
+
+			// Stop once the budget is spent and continue after this Enemy on
+			// the next frame.
+			if (System.nanoTime() - start >= budgetNanos) {
+				this.nextIndex = index + 1;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the planning time per frame.
+	 *
+	 * @return the planning time per frame in microseconds.
+	 */
+	public long getBudget() {
+		return this.budgetMicros;
+	}
+
+	/**
+	 * Sets the planning time per frame.
+	 *
+	 * @param budgetMicros
+	 *            the planning time per frame in microseconds.
+	 */
+	public void setBudget(long budgetMicros) {
+		this.budgetMicros = budgetMicros;
+	}
+
+	/**
+	 * Returns whether the paths are planned in parallel.
+	 *
+	 * @return true if planning is parallel, false if it is serial.
+	 */
+	public boolean isParallel() {
+		return this.isParallel;
+	}
+
+	/**
+	 * Sets whether the paths are planned in parallel.
+	 *
+	 * @param isParallel
+	 *            true to plan in parallel, false to plan in serial.
+	 */
+	public void setParallel(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+
+	/**
+	 * Plans a batch of Enemies. The flow fields are updated in parallel and
+	 * joined before the Enemies follow them in parallel. The subtasks are made
+	 * once, one per Enemy of a full batch, and reused on every batch.
+	 */
+	private static class PlanningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private ArrayList<Enemy> enemies; // The Enemies to plan for.
+		private ArrayList<FlowField> fields; // The flow fields to update.
+		private FieldTask[] fieldTasks; // The tasks updating the flow fields.
+		private FollowTask[] followTasks; // The tasks following the fields.
+		private int targetX; // The x coordinate of the player's tile.
+		private int targetY; // The y coordinate of the player's tile.
+
+		/**
+		 * Constructs a PlanningTask for batches of the specified size. The
+		 * lists are read again on every batch.
+		 *
+		 * @param enemies
+		 *            the Enemies to plan for.
+		 * @param fields
+		 *            the flow fields the Enemies follow.
+		 * @param batchSize
+		 *            the most Enemies planned at once.
+		 */
+		public PlanningTask(ArrayList<Enemy> enemies,
+				ArrayList<FlowField> fields, int batchSize) {
+			this.enemies = enemies;
+			this.fields = fields;
+
+			// A batch never follows more flow fields than it has Enemies.
+			this.fieldTasks = new FieldTask[batchSize];
+			this.followTasks = new FollowTask[batchSize];
+			for (int i = 0; i < batchSize; i++) {
+				this.fieldTasks[i] = new FieldTask(enemies);
+				this.followTasks[i] = new FollowTask();
+			}
+		}
+
+		/**
+		 * Sets the player's tile the next batch is planned toward.
+		 *
+		 * @param targetX
+		 *            the x coordinate of the player's tile.
+		 * @param targetY
+		 *            the y coordinate of the player's tile.
+		 */
+		public void setTarget(int targetX, int targetY) {
+			this.targetX = targetX;
+			this.targetY = targetY;
+		}
+
+		@Override
+		protected void compute() {
+			for (int i = 0; i < this.fields.size(); i++) {
+				this.fieldTasks[i].setField(this.fields.get(i), this.targetX,
+						this.targetY);
+			}
+			runTasks(this.fieldTasks, this.fields.size());
+
+			for (int i = 0; i < this.enemies.size(); i++) {
+				this.followTasks[i].setEnemy(this.enemies.get(i));
+			}
+			runTasks(this.followTasks, this.enemies.size());
+		}
+
+		/**
+		 * Runs the first tasks of the specified array in parallel and waits
+		 * for them.
+		 *
+		 * @param tasks
+		 *            the tasks to run.
+		 * @param count
+		 *            the number of tasks to run.
+		 */
+		private static void runTasks(RecursiveAction[] tasks, int count) {
+			for (int i = 0; i < count; i++) {
+				tasks[i].reinitialize();
+			}
+			for (int i = 1; i < count; i++) {
+				tasks[i].fork();
+			}
+			if (count > 0) {
+				tasks[0].invoke();
+			}
+			for (int i = count - 1; i > 0; i--) {
+				tasks[i].join();
+			}
+		}
+	}
+
+	/**
+	 * Updates one flow field and settles it at the tiles of the Enemies that
+	 * follow it.
+	 */
+	private static class FieldTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private FlowField field; // The flow field to update.
+		private ArrayList<Enemy> enemies; // The Enemies of the planned batch.
+		private int targetX; // The x coordinate of the player's tile.
+		private int targetY; // The y coordinate of the player's tile.
+
+		/**
+		 * Constructs a FieldTask for the Enemies of the planned batch.
+		 *
+		 * @param enemies
+		 *            the Enemies of the planned batch.
+		 */
+		public FieldTask(ArrayList<Enemy> enemies) {
+			this.enemies = enemies;
+		}
+
+		/**
+		 * Sets the flow field the task updates next.
+		 *
+		 * @param field
+		 *            the flow field to update.
+		 * @param targetX
+		 *            the x coordinate of the player's tile.
+		 * @param targetY
+		 *            the y coordinate of the player's tile.
+		 */
+		public void setField(FlowField field, int targetX, int targetY) {
+			this.field = field;
+			this.targetX = targetX;
+			this.targetY = targetY;
+		}
+
+		@Override
+		protected void compute() {
+			this.field.update(this.targetX, this.targetY);
+			for (int i = 0; i < this.enemies.size(); i++) {
+				Enemy enemy = this.enemies.get(i);
+				if (enemy.getFlowField() == this.field) {
+					enemy.settleFlowField();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets one Enemy's path from its updated flow field.
+	 */
+	private static class FollowTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private Enemy enemy; // The Enemy to plan for.
+
+		/**
+		 * Sets the Enemy the task plans for next.
+		 *
+		 * @param enemy
+		 *            the Enemy to plan for.
+		 */
+		public void setEnemy(Enemy enemy) {
+			this.enemy = enemy;
+		}
+
+		@Override
+		protected void compute() {
+			this.enemy.followFlowField();
+		}
+	}
+}
@@ -19,8 +19,12 @@ import objects.Gold;
 import objects.Hobbin;
 import objects.Level;
 import objects.Nobbin;
+import toolObjects.AssetCache;
+import toolObjects.Camera;
 import toolObjects.FreeTTS;
+import toolObjects.Hud;
 import toolObjects.MusicPlayer;
+import toolObjects.Sound;
 
 /**
  * LevelState manages the level and player interation for a specified
@@ -37,6 +41,10 @@ public class LevelState extends State {
 												// Allows the bullet to shoot if
 												// bulletCharge has reach this
 												// limit.
+	private final int GAME_OVER_WAIT_TIME = 390; // The amount of times update
+													// must be called for the
+													// gameOverDeathSound to
+													// finish (6.5 seconds).
 
 	// Field Variables.
 	protected Level level; // The map the LevelState is representing.
@@ -50,12 +58,17 @@ public class LevelState extends State {
 	private Bullet bullet; // The passed Bullet object.
 	private int enemyWaitTime; // Delay Enemy spawn rate.
 	private int bulletCharge; // Delay rapid bullet fire.
+	private int gameOverWaitTime; // The updates left before the game ends, 0
+									// if the game is not over.
 	private ArrayList<Enemy> enemies; // ArrayList of Enemies.
+	private EnemyScheduler enemyScheduler; // Plans the Enemy paths.
+	private Camera camera; // The Camera following the player.
+	private Hud hud; // The score and life counters.
 	// Music.
 	private MusicPlayer backgroundMusic;
-	private MusicPlayer chestCrush;
-	private MusicPlayer gameOverDeathSound;
-	private MusicPlayer deathSound;
+	private Sound chestCrush;
+	private Sound gameOverDeathSound;
+	private Sound deathSound;
 
 	/**
 	 * Constructs a LevelState which manages the player's position and
@@ -77,21 +90,24 @@ public class LevelState extends State {
 		this.isShooting = false;
 		this.bulletCharge = this.BULLET_CHARGE_LIMIT;
 
-		// Set enemyWaitTime to 0.
+		// Set enemyWaitTime and gameOverWaitTime to 0.
 		this.enemyWaitTime = 0;
+		this.gameOverWaitTime = 0;
 
 		this.enemies = new ArrayList<Enemy>();
+		this.enemyScheduler = new EnemyScheduler(
+				EnemyScheduler.DEFAULT_BUDGET_MICROS);
+		this.camera = new Camera(GamePanel.GAMEPANEL_WIDTH,
+				GamePanel.GAMEPANEL_HEIGHT);
+		this.hud = new Hud(GamePanel.GAMEPANEL_WIDTH);
 
-		// Set up background music loop.
+		// Set up background music. It starts looping on enter.
 		this.backgroundMusic = new MusicPlayer("/music/levelMusic.mp3");
-		this.backgroundMusic.playLoop();
-		
-		this.chestCrush = new MusicPlayer(
-				"/music/chestDeathSound.mp3");
-		this.gameOverDeathSound = new MusicPlayer(
-				"/music/gameOverDeathSound.mp3");
-		this.deathSound = new MusicPlayer(
-				"/music/deathSound.mp3");
+
+		this.chestCrush = AssetCache.getSound("/music/chestDeathSound.mp3");
+		this.gameOverDeathSound = AssetCache
+				.getSound("/music/gameOverDeathSound.mp3");
+		this.deathSound = AssetCache.getSound("/music/deathSound.mp3");
 
 		// Initialize the variable.
 		initialize();
@@ -113,6 +129,20 @@ public class LevelState extends State {
 
 		// Set level.
 		this.level = new Level(fileName, 32);
+
+		// Let the Camera move over the whole level.
+		this.camera.setMapSize(
+				this.level.getMapWidth() * this.level.getTileSize(),
+				this.level.getMapHeight() * this.level.getTileSize());
+
+		// Generate the Gold in view before the first frame is drawn.
+		this.level.touchChunks(this.camera);
+	}
+
+	@Override
+	public void enter() {
+		// Start the background music loop.
+		this.backgroundMusic.playLoop();
 	}
 
 	@Override
@@ -120,30 +150,75 @@ public class LevelState extends State {
 		return this.level;
 	}
 
+	/**
+	 * Returns the number of the level file the LevelState plays.
+	 * 
+	 * @return the level number.
+	 */
+	public int getLevelNumber() {
+		return this.levelNumber;
+	}
+
 	@Override
 	public void draw(Graphics2D g2) {
 		// Clears the frame.
 		g2.setColor(Color.WHITE);
 		g2.fillRect(0, 0, GamePanel.GAMEPANEL_WIDTH, GamePanel.GAMEPANEL_HEIGHT);
 
+		// Draw the map from the Camera's point of view.
+		this.camera.apply(g2);
+
 		// Draws the level.
-		this.level.draw(g2);
+		this.level.draw(g2, this.camera);
 
 		// Draws the player.
-		this.player.incrementDelayCounter();
 		this.player.draw(g2);
 
 		// Draws Gold.
 		ArrayList<Gold> goldObjects = this.level.getGoldObjects();
 		for (int i = 0; i < goldObjects.size(); i++) {
-			goldObjects.get(i).draw(g2);
+			goldObjects.get(i).draw(g2, this.camera);
 		}
 
 		// Draws bullet if space is clicked.
 		if (this.isShooting) {
-//			MusicPlayer bulletSFX = new MusicPlayer("/music/bulletFX.mp3");
-//			bulletSFX.play();
-			this.stateManager.getBullet().draw(g2);
+			this.stateManager.getBullet().draw(g2, this.camera);
+		}
+
+		// Draws Enemies.
+		drawEnemy(g2);
+
+		this.camera.restore(g2);
+
+		// Draws the score and life counters over the map.
+		this.hud.draw(g2);
+	}
+
+	private void drawEnemy(Graphics2D g2) {
+		for (int i = 0; i < this.enemies.size(); i++) {
+			if (this.enemies.get(i).getLevel() != null) {
+				this.enemies.get(i).draw(g2, this.camera);
+			}
+		}
+	}
+
+	/**
+	 * Advances the player, Gold, Bullet and Enemies by one update.
+	 * 
+	 */
+	private void updateObjects() {
+		// Updates the player.
+		this.player.incrementDelayCounter();
+
+		// Updates Gold.
+		ArrayList<Gold> goldObjects = this.level.getGoldObjects();
+		for (int i = 0; i < goldObjects.size(); i++) {
+			goldObjects.get(i).update();
+		}
+
+		// Updates bullet if space is clicked.
+		if (this.isShooting) {
+			this.stateManager.getBullet().update();
 			if (this.stateManager.getBullet().getHasCollided()) {
 				this.bullet.setIsFieldSet(false);
 				this.isShooting = false;
@@ -155,21 +230,57 @@ public class LevelState extends State {
 			this.bulletCharge++;
 		}
 
-		// Draws Enemies.
-		drawEnemy(g2);
-	}
-
-	private void drawEnemy(Graphics2D g2) {
+		// Updates Enemies.
 		for (int i = 0; i < this.enemies.size(); i++) {
 			if (this.enemies.get(i).getLevel() != null) {
 				this.enemies.get(i).incrementDelayCounter();
-				this.enemies.get(i).draw(g2);
+				this.enemies.get(i).update();
 			}
 		}
+
+		// Plan the paths of the Enemies that are about to move.
+		this.enemyScheduler.plan(this.enemies);
+
+		// Keep the Camera centered on the player.
+		int tileSize = this.level.getTileSize();
+		this.camera.follow((this.player.getPositionX() + 0.5) * tileSize,
+				(this.player.getPositionY() + 0.5) * tileSize);
+		this.level.touchChunks(this.camera);
+	}
+
+	/**
+	 * Returns the Camera following the player.
+	 * 
+	 * @return the Camera.
+	 */
+	public Camera getCamera() {
+		return this.camera;
+	}
+
+	/**
+	 * Returns the EnemyScheduler planning the Enemy paths. Mainly used to
+	 * adjust its planning budget.
+	 * 
+	 * @return the EnemyScheduler.
+	 */
+	public EnemyScheduler getEnemyScheduler() {
+		return this.enemyScheduler;
 	}
 
 	@Override
 	public void update() {
+		// While the gameOverDeathSound plays, the level stands still.
+		if (this.gameOverWaitTime > 0) {
+			this.gameOverWaitTime--;
+			if (this.gameOverWaitTime == 0) {
+				endGame();
+			}
+			return;
+		}
+
+		// Advance the player, Gold, Bullet and Enemies.
+		updateObjects();
+
 		// Spawn Enemy.
 		spawnEnemy();
 
@@ -198,7 +309,7 @@ public class LevelState extends State {
 		updateLifeCounter();
 
 		// Check emerald on board. If empty (0), progress.
-		if (this.level.getEmeraldCount() == 0) {
+		if (this.gameOverWaitTime == 0 && this.level.getEmeraldCount() == 0) {
 			progressForward();
 		}
 	}
@@ -219,18 +330,15 @@ public class LevelState extends State {
 	}
 
 	/**
-	 * Checks if the game is over (life = 0)
+	 * Checks if the game is over (life = 0). If so, the gameOverDeathSound
+	 * plays and the game ends GAME_OVER_WAIT_TIME updates later.
 	 * 
 	 * @param currentLife
 	 *            the number of lives the player has.
 	 */
 	public void checkGameOverStatus(int currentLife) {
-		// Constants.
-		final int HIGHSCORE_STATE = 5;
-
-		// If the currentLife is 0, end the game and transition the player back
-		// to MenuState.
-		if (currentLife == 0) {
+		// If the currentLife is 0, start the wait before the game ends.
+		if (currentLife == 0 && this.gameOverWaitTime == 0) {
 			// Closes the backgroundMusic so that other sounds can be heard.
 			this.backgroundMusic.close();
 
@@ -238,27 +346,31 @@ public class LevelState extends State {
 			this.gameOverDeathSound.play();
 
 			// Allows the gameOverDeathSound to finish playing.
-			try {
-				Thread.sleep(6500);
-			} catch (InterruptedException exception) {
-				exception.printStackTrace();
-			}
+			this.gameOverWaitTime = this.GAME_OVER_WAIT_TIME;
+		}
+	}
 
-			// Request for player name.
-			requestForName();
+	/**
+	 * Ends the game and transitions the player to the HighScoreState.
+	 * 
+	 */
+	public void endGame() {
+		// Constants.
+		final int HIGHSCORE_STATE = 5;
 
-			// Sets the isPlayingSurvival status to false in both LevelState and
-			// StateManager.
-			this.stateManager.setIsPlayingSurvival(false);
+		// Request for player name.
+		requestForName();
 
-			// Reset the player's score and bring them to the Digger screen.
-			this.player.resetScore();
-			this.stateManager.setState(HIGHSCORE_STATE);
+		// Sets the isPlayingSurvival status to false in both LevelState and
+		// StateManager.
+		this.stateManager.setIsPlayingSurvival(false);
 
-			// Set player level to null and close gameOverDeathSound.
-			this.player.setLevel(null);
-			gameOverDeathSound.close();
-		}
+		// Reset the player's score and bring them to the Digger screen.
+		this.player.resetScore();
+		this.stateManager.setState(HIGHSCORE_STATE);
+
+		// Set player level to null.
+		this.player.setLevel(null);
 	}
 
 	/**
@@ -365,34 +477,21 @@ public class LevelState extends State {
 	}
 
 	/**
-	 * Updates the visual score counter.
+	 * Updates the visual score counter. The Hud only redraws it if the score
+	 * changed.
 	 * 
 	 */
 	public void updateScoreCounter() {
-		String currentScoreString = String.format("%05d",
-				this.player.getScore());
-		int newScore = Integer.parseInt(currentScoreString);
-		int evaluate;
-
-		// Updates the visual score counter.
-		for (int i = 0; i < currentScoreString.length(); i++) {
-			int x = (this.level.getMap().length - 1) - i;
-			evaluate = newScore % 10;
-			int tileID = this.level.convertToTileID(evaluate);
-			this.level.updateTile(x, 0, tileID);
-			newScore = newScore / 10;
-		}
-
+		this.hud.setScore(this.player.getScore());
 	}
 
 	/**
-	 * Updates the visual life counter.
+	 * Updates the visual life counter. The Hud only redraws it if the lives
+	 * changed.
 	 * 
 	 */
 	public void updateLifeCounter() {
-		int currentLife = this.player.getLife();
-		int tileID = this.level.convertToTileID(currentLife);
-		this.level.updateTile(5, 0, tileID);
+		this.hud.setLife(this.player.getLife());
 	}
 
 	/**
@@ -527,6 +626,12 @@ public class LevelState extends State {
 		// Constants.
 		final int BULLET_CHARGE_LIMIT = 40;
 
+		// Ignore input while the game over sequence runs, so that the pending
+		// endGame acts on the level it was started in.
+		if (this.gameOverWaitTime > 0) {
+			return;
+		}
+
 		// Player Movement.
 		if (key == KeyEvent.VK_LEFT) {
 			this.player.move("left");
@@ -42,7 +42,6 @@ public class MenuState extends State {
 	public MenuState(StateManager stateManager) {
 		this.stateManager = stateManager;
 		this.menuBackgroundMusic = new MusicPlayer("/music/mainMenuMusic.mp3");
-		this.menuBackgroundMusic.playLoop();
 		
 		try {
 			this.background = new Background("/background/menuBackground.gif", 1);
@@ -65,6 +64,12 @@ public class MenuState extends State {
 		// Not used in MenuState.
 	}
 
+	@Override
+	public void enter() {
+		// Start the menu music loop.
+		this.menuBackgroundMusic.playLoop();
+	}
+
 	@Override
 	public void update() {
 		this.background.update();
@@ -18,6 +18,16 @@ public abstract class State {
 	 */
 	public abstract void initialize();
 
+	/**
+	 * Starts the State when it becomes the current State, such as starting its
+	 * music. A State may be constructed ahead of time, so anything that should
+	 * only happen while the State is shown belongs here.
+	 * 
+	 */
+	public void enter() {
+		// Not used by default.
+	}
+
 	/**
 	 * Updates the State according to certain actions.
 	 * 
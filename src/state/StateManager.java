@@ -2,6 +2,11 @@ package state;
 
 import java.awt.Graphics2D;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import objects.Bullet;
 import objects.Digger;
@@ -12,13 +17,16 @@ import toolObjects.Cheat;
 
 /**
  * StateManager manages the various States of the game and assist in passing a
- * consistent objects.
+ * consistent objects. While a State is shown, the level most likely to come
+ * next is built on a background thread, so moving to it does not stall a
+ * frame.
  * 
  * @author Mark Hays and his students. Created Feb 6, 2015.
  */
 public class StateManager {
 	// Field Constants.
 	private final int NUMBER_OF_STATES = 7;
+	private final int NUMBER_OF_LEVELS = 4; // The number of level files.
 
 	// Passed Digger.
 	protected Digger player; // The player object that moves between the states.
@@ -36,6 +44,11 @@ public class StateManager {
 	private int currentState; // The index position on the states arrayList.
 	private boolean isPlayingSurvival;// The boolean value if survival mode is selected.
 	private Cheat cheat; // The Cheat handler.
+	private ExecutorService preloader; // Builds the next level in the
+										// background.
+	private Future<LevelState> preloadedLevel; // The level being preloaded,
+												// null if none.
+	private int preloadedLevelNumber; // The level number being preloaded.
 
 	/**
 	 * Constructs the StateManager that manages various States of the game.
@@ -50,11 +63,18 @@ public class StateManager {
 		
 		this.cheat = new Cheat(this);
 
-		// Sets the currentState to the menuState.
-		this.currentState = 0;
-		
-		loadState(this.currentState);
-		
+		// A single low priority thread builds the preloaded levels.
+		this.preloader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Level Preloader");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+		this.preloadedLevel = null;
+
 		// Initialize a player object and enemy with null level.
 		// this.gold = new Gold(this);
 		this.player = new Digger(null);
@@ -64,6 +84,11 @@ public class StateManager {
 		// Initialize the bullet.
 		this.bullet = new Bullet(this);
 
+		// Sets the currentState to the menuState. The first level is built
+		// while the menu is shown.
+		this.currentState = 0;
+		
+		loadState(this.currentState);
 	}
 	
 	/**
@@ -87,32 +112,90 @@ public class StateManager {
 			this.states[state] = new MenuState(this);
 		} 
 		if (state == LEVEL_0) {
-			this.states[state] = new LevelState(this, LEVEL_0 - 1);
+			this.states[state] = getLevelState(LEVEL_0 - 1);
 		} 
 		if (state == LEVEL_1) {
-			this.states[state] = new LevelState(this, LEVEL_1 - 1);
+			this.states[state] = getLevelState(LEVEL_1 - 1);
 		}
 		if (state == LEVEL_2) {
-			this.states[state] = new LevelState(this, LEVEL_2 - 1); 
+			this.states[state] = getLevelState(LEVEL_2 - 1); 
 		}
 		if (state == LEVEL_3) {
-			this.states[state] = new LevelState(this, LEVEL_3 - 1);
+			this.states[state] = getLevelState(LEVEL_3 - 1);
 		} 
 		if (state == HIGH_SCORE_STATE) {
 			if (this.isPlayingSurvival) {
-				this.states[state] = new LevelState(this, LEVEL_0 - 1);
+				this.states[state] = getLevelState(LEVEL_0 - 1);
 			} else {
 				this.states[state] = new HighScoreState(this);
 			}
 		}
 		if (state == SURVIVAL_STATE) {
-			this.states[state] = new LevelState(this, LEVEL_0 - 1);
+			this.states[state] = getLevelState(LEVEL_0 - 1);
 			this.isPlayingSurvival = true;
 		}
 		
+		// Start the State and preload the level likely to follow it.
+		this.states[state].enter();
+		if (this.states[state] instanceof LevelState) {
+			int levelNumber = ((LevelState) this.states[state]).getLevelNumber() + 1;
+			if (levelNumber < this.NUMBER_OF_LEVELS || this.isPlayingSurvival) {
+				preloadLevel(levelNumber % this.NUMBER_OF_LEVELS);
+			}
+		} else {
+			preloadLevel(0);
+		}
+
 		long delta = System.nanoTime() - start;
 		System.err.println("Load time (ms): "+(delta/1000000L));
 	}
+
+	/**
+	 * Returns a LevelState of the specified level. The preloaded LevelState is
+	 * used if it is of that level, waiting for it if it is not built yet.
+	 * Otherwise the LevelState is built now.
+	 *
+	 * @param levelNumber the number of the level file.
+	 * @return the LevelState of the level.
+	 */
+	private LevelState getLevelState(int levelNumber) {
+		if (this.preloadedLevel != null
+				&& this.preloadedLevelNumber == levelNumber) {
+			Future<LevelState> preloaded = this.preloadedLevel;
+			this.preloadedLevel = null;
+			try {
+				return preloaded.get();
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.out.println("Error: The level could not be preloaded.");
+			}
+		}
+		return new LevelState(this, levelNumber);
+	}
+
+	/**
+	 * Starts building a LevelState of the specified level in the background,
+	 * replacing any other preloaded level. A LevelState does not start its
+	 * music until it is entered, so building it ahead of time has no effect on
+	 * the current State.
+	 *
+	 * @param levelNumber the number of the level file.
+	 */
+	private void preloadLevel(final int levelNumber) {
+		if (this.preloadedLevel != null) {
+			if (this.preloadedLevelNumber == levelNumber) {
+				return;
+			}
+			this.preloadedLevel.cancel(false);
+		}
+		this.preloadedLevelNumber = levelNumber;
+		this.preloadedLevel = this.preloader.submit(new Callable<LevelState>() {
+			@Override
+			public LevelState call() {
+				return new LevelState(StateManager.this, levelNumber);
+			}
+		});
+	}
 	
 	/**
 	 * Set the specified state to null.
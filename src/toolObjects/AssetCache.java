@@ -0,0 +1,194 @@
+package toolObjects;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * The AssetCache decodes every image and sound of the game exactly once and
+ * shares the decoded result with every object that uses it. Sprites come from
+ * the shared SpriteAtlas, larger images are kept in the screen's compatible
+ * format and sound effects are kept as PCM Sounds for the SoundMixer.
+ * Everything can be preloaded at startup, so no image or sound effect is read
+ * or decoded during gameplay. Music is not cached, since MusicStreams decode
+ * it while it plays.
+ */
+public class AssetCache {
+	// The images that are not packed in the atlas.
+	public static final String[] IMAGE_FILES = { "/background/menuBackground.gif" };
+	// The sound effect files of the game.
+	public static final String[] SOUND_FILES = { "/music/bulletFX.mp3",
+			"/music/chestDeathSound.mp3", "/music/chestOpenSound.mp3",
+			"/music/deathSound.mp3", "/music/enemyDeathSound.mp3",
+			"/music/gameOverDeathSound.mp3", "/music/pointsGainSound.mp3",
+			"/music/victorySound.mp3" };
+
+	// The decoded images by file name.
+	private static HashMap<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+	// The decoded sound effects by file name.
+	private static HashMap<String, Sound> sounds = new HashMap<String, Sound>();
+
+	/**
+	 * Decodes every sprite, image and sound of the game, so that later
+	 * requests are answered from the cache. The time taken is printed if the
+	 * digger.logPreload property is set.
+	 */
+	public static void preload() {
+		long start = System.nanoTime();
+		SpriteAtlas.getAtlas();
+		for (int i = 0; i < IMAGE_FILES.length; i++) {
+			getImage(IMAGE_FILES[i]);
+		}
+		SoundMixer.getMixer();
+		for (int i = 0; i < SOUND_FILES.length; i++) {
+			getSound(SOUND_FILES[i]);
+		}
+		if (Boolean.getBoolean("digger.logPreload")) {
+			System.out.println("Preload time (ms): "
+					+ (System.nanoTime() - start) / 1000000);
+		}
+	}
+
+	/**
+	 * Returns the sprite of the specified file from the shared atlas.
+	 *
+	 * @param fileName
+	 *            the sprite file, such as "/tile/dirt.png".
+	 * @return the sprite, or null if the file is not in the atlas.
+	 */
+	public static Sprite getSprite(String fileName) {
+		return SpriteAtlas.getAtlas().getSprite(fileName);
+	}
+
+	/**
+	 * Returns the image of the specified file, decoding it and converting it
+	 * to the screen's format on first use. The returned image is shared and
+	 * must not be drawn on.
+	 *
+	 * @param fileName
+	 *            the image file, such as "/background/menuBackground.gif".
+	 * @return the decoded image.
+	 */
+	public static synchronized BufferedImage getImage(String fileName) {
+		BufferedImage image = images.get(fileName);
+		if (image != null) {
+			return image;
+		}
+		try {
+			BufferedImage decoded = ImageIO.read(AssetCache.class
+					.getResourceAsStream(fileName));
+			image = SpriteAtlas.createCompatibleImage(decoded.getWidth(),
+					decoded.getHeight(), decoded.getTransparency());
+			Graphics2D g2 = image.createGraphics();
+			g2.drawImage(decoded, 0, 0, null);
+			g2.dispose();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Error: File not found.");
+			System.exit(0);
+		}
+		images.put(fileName, image);
+		return image;
+	}
+
+	/**
+	 * Returns the sound effect of the specified file, decoding it into the
+	 * SoundMixer's format on first use. A sound effect that cannot be decoded
+	 * is only tried once and plays as silence.
+	 *
+	 * @param fileName
+	 *            the sound file, such as "/music/bulletFX.mp3".
+	 * @return the decoded Sound.
+	 */
+	public static synchronized Sound getSound(String fileName) {
+		if (sounds.containsKey(fileName)) {
+			return sounds.get(fileName);
+		}
+		Sound sound = null;
+		try {
+			AudioInputStream audioInputStream = AudioSystem
+					.getAudioInputStream(AssetCache.class.getResource(fileName));
+			AudioFormat baseFormat = audioInputStream.getFormat();
+			int channels = baseFormat.getChannels();
+			AudioFormat decodeFormat = new AudioFormat(
+					AudioFormat.Encoding.PCM_SIGNED,
+					baseFormat.getSampleRate(), 16, channels, channels * 2,
+					baseFormat.getSampleRate(), false);
+			AudioInputStream decodeAudioInputStream = AudioSystem
+					.getAudioInputStream(decodeFormat, audioInputStream);
+
+			// Decode the whole file.
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[65536];
+			int count;
+			while ((count = decodeAudioInputStream.read(buffer)) > 0) {
+				bytes.write(buffer, 0, count);
+			}
+			audioInputStream.close();
+			decodeAudioInputStream.close();
+
+			sound = new Sound(convertSamples(bytes.toByteArray(), channels,
+					baseFormat.getSampleRate()));
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Error: " + fileName + " could not be decoded.");
+			sound = new Sound(new short[0]);
+		}
+		sounds.put(fileName, sound);
+		return sound;
+	}
+
+	/**
+	 * Converts little-endian 16 bit samples to the channels and the sample
+	 * rate of the SoundMixer. Extra channels are dropped, a mono channel is
+	 * copied to every channel, and other sample rates are resampled linearly.
+	 *
+	 * @param bytes
+	 *            the little-endian 16 bit samples, interleaved by channel.
+	 * @param channels
+	 *            the number of channels of the samples.
+	 * @param sampleRate
+	 *            the sample rate of the samples.
+	 * @return the samples in the SoundMixer's format.
+	 */
+	private static short[] convertSamples(byte[] bytes, int channels,
+			float sampleRate) {
+		int frames = bytes.length / (2 * channels);
+		double step = sampleRate / SoundMixer.SAMPLE_RATE;
+		int outputFrames = (int) (frames / step);
+		short[] samples = new short[outputFrames * SoundMixer.CHANNELS];
+		for (int i = 0; i < outputFrames; i++) {
+			double position = i * step;
+			int frame = (int) position;
+			int nextFrame = Math.min(frame + 1, frames - 1);
+			double fraction = position - frame;
+			for (int c = 0; c < SoundMixer.CHANNELS; c++) {
+				int channel = Math.min(c, channels - 1);
+				int first = readSample(bytes, frame * channels + channel);
+				int second = readSample(bytes, nextFrame * channels + channel);
+				samples[i * SoundMixer.CHANNELS + c] = (short) Math
+						.round(first + (second - first) * fraction);
+			}
+		}
+		return samples;
+	}
+
+	/**
+	 * Reads a little-endian 16 bit sample.
+	 *
+	 * @param bytes
+	 *            the samples.
+	 * @param index
+	 *            the index of the sample.
+	 * @return the sample.
+	 */
+	private static int readSample(byte[] bytes, int index) {
+		return (bytes[2 * index] & 0xFF) | (bytes[2 * index + 1] << 8);
+	}
+}
@@ -2,8 +2,6 @@ package toolObjects;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
-import javax.imageio.ImageIO;
-
 import main.GamePanel;
 
 
@@ -27,14 +25,7 @@ public class Background {
 	 * @param shiftingRate the rate the menu is moving (preferably horizontal)
 	 */
 	public Background(String fileName, double shiftingRate) {
-		try {
-			
-			this.image = ImageIO.read(getClass().getResourceAsStream(fileName));
-			
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
-		} 
+		this.image = AssetCache.getImage(fileName);
 	}
 	
 	/**
@@ -0,0 +1,166 @@
+package toolObjects;
+
+import java.awt.Graphics2D;
+
+/**
+ * A Camera represents the part of a map that is visible on the panel. It
+ * follows a position, such as the player's, and stays inside the map, so maps
+ * larger than the panel scroll. Objects outside its visible rectangle do not
+ * need to be drawn.
+ */
+public class Camera {
+	private int positionX; // The x coordinate of the top left corner in
+							// pixels.
+	private int positionY; // The y coordinate of the top left corner in
+							// pixels.
+	private int width; // The width of the visible rectangle in pixels.
+	private int height; // The height of the visible rectangle in pixels.
+	private int mapWidth; // The width of the map in pixels.
+	private int mapHeight; // The height of the map in pixels.
+
+	/**
+	 * Constructs a Camera with a visible rectangle of the specified size at
+	 * the top left corner of the map.
+	 *
+	 * @param width
+	 *            the width of the visible rectangle in pixels.
+	 * @param height
+	 *            the height of the visible rectangle in pixels.
+	 */
+	public Camera(int width, int height) {
+		this.positionX = 0;
+		this.positionY = 0;
+		this.width = width;
+		this.height = height;
+		this.mapWidth = width;
+		this.mapHeight = height;
+	}
+
+	/**
+	 * Sets the size of the map the Camera moves over.
+	 *
+	 * @param mapWidth
+	 *            the width of the map in pixels.
+	 * @param mapHeight
+	 *            the height of the map in pixels.
+	 */
+	public void setMapSize(int mapWidth, int mapHeight) {
+		this.mapWidth = mapWidth;
+		this.mapHeight = mapHeight;
+		follow(this.positionX + this.width / 2.0, this.positionY + this.height
+				/ 2.0);
+	}
+
+	/**
+	 * Centers the Camera on the specified position, keeping the visible
+	 * rectangle inside the map. A map smaller than the visible rectangle is
+	 * shown from its top left corner.
+	 *
+	 * @param centerX
+	 *            the x coordinate to center on in pixels.
+	 * @param centerY
+	 *            the y coordinate to center on in pixels.
+	 */
+	public void follow(double centerX, double centerY) {
+		this.positionX = clamp((int) Math.round(centerX - this.width / 2.0),
+				this.mapWidth - this.width);
+		this.positionY = clamp((int) Math.round(centerY - this.height / 2.0),
+				this.mapHeight - this.height);
+	}
+
+	/**
+	 * Clamps the specified coordinate between 0 and the specified limit.
+	 *
+	 * @param value
+	 *            the coordinate to clamp.
+	 * @param limit
+	 *            the largest coordinate allowed.
+	 * @return the clamped coordinate.
+	 */
+	private int clamp(int value, int limit) {
+		if (value > limit) {
+			value = limit;
+		}
+		if (value < 0) {
+			value = 0;
+		}
+		return value;
+	}
+
+	/**
+	 * Returns whether the specified rectangle is at least partly inside the
+	 * visible rectangle.
+	 *
+	 * @param x
+	 *            the x coordinate of the rectangle in pixels.
+	 * @param y
+	 *            the y coordinate of the rectangle in pixels.
+	 * @param width
+	 *            the width of the rectangle in pixels.
+	 * @param height
+	 *            the height of the rectangle in pixels.
+	 * @return true if it is visible, false if not.
+	 */
+	public boolean isVisible(double x, double y, double width, double height) {
+		return x < this.positionX + this.width && x + width > this.positionX
+				&& y < this.positionY + this.height
+				&& y + height > this.positionY;
+	}
+
+	/**
+	 * Moves the specified Graphics2D object so that the map is drawn from the
+	 * Camera's point of view.
+	 *
+	 * @param g2
+	 *            the Graphics2D object to move.
+	 */
+	public void apply(Graphics2D g2) {
+		g2.translate(-this.positionX, -this.positionY);
+	}
+
+	/**
+	 * Moves the specified Graphics2D object back to the panel's point of view.
+	 *
+	 * @param g2
+	 *            the Graphics2D object to move back.
+	 */
+	public void restore(Graphics2D g2) {
+		g2.translate(this.positionX, this.positionY);
+	}
+
+	/**
+	 * Returns the x coordinate of the visible rectangle's top left corner.
+	 *
+	 * @return the x coordinate in pixels.
+	 */
+	public int getPositionX() {
+		return this.positionX;
+	}
+
+	/**
+	 * Returns the y coordinate of the visible rectangle's top left corner.
+	 *
+	 * @return the y coordinate in pixels.
+	 */
+	public int getPositionY() {
+		return this.positionY;
+	}
+
+	/**
+	 * Returns the width of the visible rectangle.
+	 *
+	 * @return the width in pixels.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the visible rectangle.
+	 *
+	 * @return the height in pixels.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+}
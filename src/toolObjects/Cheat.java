@@ -26,7 +26,7 @@ public class Cheat {
 	private StateManager stateManager;
 	private int currentIndex;
 
-	private MusicPlayer victorySound; // Victory music played on code completion.
+	private Sound victorySound; // Victory music played on code completion.
 
 	/**
 	 * Constructs a Cheat handler.
@@ -37,8 +37,7 @@ public class Cheat {
 		this.code = new ArrayList<Integer>();
 		this.stateManager = stateManager;
 		this.currentIndex = 0;
-		this.victorySound = new MusicPlayer(
-				"/music/victorySound.mp3");
+		this.victorySound = AssetCache.getSound("/music/victorySound.mp3");
 	}
 
 	/**
@@ -0,0 +1,112 @@
+package toolObjects;
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * The heads-up display of a level: the "LIFEX" label with the player's lives
+ * in the top left corner and the score in the top right corner of the panel.
+ * Both are drawn in barrier glyphs into cached images, which are only redrawn
+ * when the lives or the score change, straight from their int values. Drawing
+ * the Hud on a frame only draws the two cached images.
+ */
+public class Hud {
+	// Field Constants.
+	private final int TILE_SIZE = 32; // The pixel size of a glyph.
+	private final int SCORE_DIGITS = 5; // The number of score digits shown.
+	private final int LIFE_LABEL_LENGTH = 5; // The number of glyphs in "LIFEX".
+
+	// Field Variables.
+	private int width; // The width of the panel in pixels.
+	private Sprite[] digits; // The glyph of each digit.
+	private BufferedImage lifeImage; // The cached "LIFEX" label and lives.
+	private Graphics2D lifeGraphics; // The Graphics2D of the life image.
+	private BufferedImage scoreImage; // The cached score.
+	private Graphics2D scoreGraphics; // The Graphics2D of the score image.
+	private int life; // The lives shown, -1 before the first update.
+	private int score; // The score shown, -1 before the first update.
+
+	/**
+	 * Constructs a Hud for a panel of the specified width.
+	 *
+	 * @param width
+	 *            the width of the panel in pixels.
+	 */
+	public Hud(int width) {
+		this.width = width;
+		this.digits = new Sprite[10];
+		for (int i = 0; i < this.digits.length; i++) {
+			this.digits[i] = AssetCache
+					.getSprite("/tile/barrier/barrierNumber" + i + ".png");
+		}
+
+		// Draw the label once.
+		this.lifeImage = SpriteAtlas.createCompatibleImage(
+				(this.LIFE_LABEL_LENGTH + 1) * this.TILE_SIZE, this.TILE_SIZE,
+				Transparency.OPAQUE);
+		this.lifeGraphics = this.lifeImage.createGraphics();
+		String[] label = { "L", "I", "F", "E", "X" };
+		for (int i = 0; i < label.length; i++) {
+			AssetCache.getSprite("/tile/barrier/barrier" + label[i] + "Block.png")
+					.draw(this.lifeGraphics, i * this.TILE_SIZE, 0);
+		}
+
+		this.scoreImage = SpriteAtlas.createCompatibleImage(this.SCORE_DIGITS
+				* this.TILE_SIZE, this.TILE_SIZE, Transparency.OPAQUE);
+		this.scoreGraphics = this.scoreImage.createGraphics();
+		this.life = -1;
+		this.score = -1;
+	}
+
+	/**
+	 * Sets the lives shown. The life image is only redrawn if they changed.
+	 * Lives above 9 are shown as 9.
+	 *
+	 * @param life
+	 *            the number of lives.
+	 */
+	public void setLife(int life) {
+		if (life == this.life) {
+			return;
+		}
+		this.life = life;
+		int digit = Math.max(0, Math.min(9, life));
+		this.digits[digit].draw(this.lifeGraphics, this.LIFE_LABEL_LENGTH
+				* this.TILE_SIZE, 0);
+	}
+
+	/**
+	 * Sets the score shown. The score image is only redrawn if it changed.
+	 * Only the last SCORE_DIGITS digits are shown.
+	 *
+	 * @param score
+	 *            the score.
+	 */
+	public void setScore(int score) {
+		if (score == this.score) {
+			return;
+		}
+		this.score = score;
+
+		// Draw the digits from the right.
+		int value = Math.max(0, score);
+		for (int i = this.SCORE_DIGITS - 1; i >= 0; i--) {
+			this.digits[value % 10].draw(this.scoreGraphics, i
+					* this.TILE_SIZE, 0);
+			value = value / 10;
+		}
+	}
+
+	/**
+	 * Draws the Hud on the specified Graphics2D object in panel coordinates.
+	 *
+	 * @param g2
+	 *            the Graphics2D object to draw on.
+	 */
+	public void draw(Graphics2D g2) {
+		g2.drawImage(this.lifeImage, 0, 0, null);
+		g2.drawImage(this.scoreImage, this.width - this.scoreImage.getWidth(),
+				0, null);
+	}
+}
@@ -0,0 +1,100 @@
+package toolObjects;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in first-out queue of primitive ints backed by a ring buffer. Adding
+ * and removing never shift elements, and the buffer only grows when it is
+ * full, so a reused IntQueue does not allocate.
+ */
+public class IntQueue {
+	private int[] elements; // The ring buffer. Its length is a power of two.
+	private int head; // The position of the first element.
+	private int size; // The number of elements in the queue.
+
+	/**
+	 * Constructs an IntQueue with room for at least the specified number of
+	 * elements.
+	 *
+	 * @param capacity
+	 *            the initial capacity.
+	 */
+	public IntQueue(int capacity) {
+		int length = 1;
+		while (length < capacity) {
+			length = length * 2;
+		}
+		this.elements = new int[length];
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds the specified value to the end of the queue.
+	 *
+	 * @param value
+	 *            the value to add.
+	 */
+	public void add(int value) {
+		if (this.size == this.elements.length) {
+			grow();
+		}
+		this.elements[(this.head + this.size) & (this.elements.length - 1)] = value;
+		this.size++;
+	}
+
+	/**
+	 * Removes and returns the value at the front of the queue.
+	 *
+	 * @return the value at the front of the queue.
+	 */
+	public int remove() {
+		if (this.size == 0) {
+			throw new NoSuchElementException();
+		}
+		int value = this.elements[this.head];
+		this.head = (this.head + 1) & (this.elements.length - 1);
+		this.size--;
+		return value;
+	}
+
+	/**
+	 * Returns whether the queue is empty.
+	 *
+	 * @return true if the queue is empty, false if not.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Returns the number of values in the queue.
+	 *
+	 * @return the number of values.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes every value from the queue.
+	 *
+	 */
+	public void clear() {
+		this.head = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Doubles the ring buffer, moving the values to the start of the new one.
+	 *
+	 */
+	private void grow() {
+		int[] grown = new int[this.elements.length * 2];
+		for (int i = 0; i < this.size; i++) {
+			grown[i] = this.elements[(this.head + i) & (this.elements.length - 1)];
+		}
+		this.elements = grown;
+		this.head = 0;
+	}
+}
@@ -1,21 +1,22 @@
 package toolObjects;
-import java.util.HashMap;
-
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
 
 /**
- * A media player that plays specified music files.
+ * A media player that plays specified music files. The music is streamed
+ * through the SoundMixer while it plays, so a MusicPlayer holds no decoded
+ * audio and is cheap to construct. Playing and stopping are posted as
+ * commands to the SoundMixer's thread, so they return immediately.
  *
  * @author Mark Hays and his students.
  *         Created Feb 14, 2015.
  */
 public class MusicPlayer {
 	
-	private Clip clip;
-	static HashMap<String, Clip> clips=new HashMap<String, Clip>();
+	private String fileName; // The destination of the media file.
+	private MusicStream stream; // The playing stream, null if never played.
+								// Only used on the SoundMixer's thread.
+	private Runnable playCommand; // Starts the music once.
+	private Runnable playLoopCommand; // Starts the music in a loop.
+	private Runnable stopCommand; // Stops the music.
 	
 	/**
 	 * Constructs a Music Player.
@@ -23,28 +24,26 @@ public class MusicPlayer {
 	 * @param fileName the destination of the media file.
 	 */
 	public MusicPlayer(String fileName) {
-		// FIXME: reduce the number of calls to the code below
-		// Obtain a clip.
-		try {
-			if(clips.containsKey(fileName)){
-				this.clip = clips.get(fileName);
-				return;
+		this.fileName = fileName;
+		this.stream = null;
+		this.playCommand = new Runnable() {
+			@Override
+			public void run() {
+				start(false);
 			}
-			AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(getClass().getResource(fileName));
-			AudioFormat baseFormat = audioInputStream.getFormat();
-			AudioFormat decodeFormat = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
-					baseFormat.getSampleRate(), 16, baseFormat.getChannels(),
-					baseFormat.getChannels() * 2, baseFormat.getSampleRate(),
-					false);
-			AudioInputStream decodeAudioInputStream = AudioSystem.getAudioInputStream(decodeFormat, audioInputStream);
-			this.clip = AudioSystem.getClip();
-			this.clip.open(decodeAudioInputStream);
-			audioInputStream.close();
-			decodeAudioInputStream.close();
-			clips.put(fileName, clip);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		};
+		this.playLoopCommand = new Runnable() {
+			@Override
+			public void run() {
+				start(true);
+			}
+		};
+		this.stopCommand = new Runnable() {
+			@Override
+			public void run() {
+				stopStream();
+			}
+		};
 	}
 	
 	/**
@@ -52,12 +51,7 @@ public class MusicPlayer {
 	 *
 	 */
 	public void play() {
-		if (this.clip == null) {
-			return;
-		}
-		stop();
-		this.clip.setFramePosition(0);
-		this.clip.start();
+		SoundMixer.getMixer().post(this.playCommand);
 	}
 	
 	/**
@@ -65,19 +59,7 @@ public class MusicPlayer {
 	 *
 	 */
 	public void playLoop() {
-		if (this.clip == null) {
-			return;
-		}
-		stop();
-		this.clip.flush();
-		this.clip.setFramePosition(0);
-		this.clip.start();
-		this.clip.loop(this.clip.LOOP_CONTINUOUSLY);
-		try {
-			Thread.sleep(200);
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		SoundMixer.getMixer().post(this.playLoopCommand);
 	}
 	
 	/**
@@ -85,9 +67,7 @@ public class MusicPlayer {
 	 *
 	 */
 	public void stop() {
-		if (this.clip.isRunning()) {
-			this.clip.stop();
-		}
+		SoundMixer.getMixer().post(this.stopCommand);
 	}
 	
 	/**
@@ -96,6 +76,28 @@ public class MusicPlayer {
 	 */
 	public void close() {
 		stop();
-		//this.clip.close();
+	}
+
+	/**
+	 * Starts a new stream of the music in place of the current one. Runs on
+	 * the SoundMixer's thread.
+	 *
+	 * @param isLooping
+	 *            true if the music loops until it is stopped.
+	 */
+	private void start(boolean isLooping) {
+		stopStream();
+		this.stream = new MusicStream(this.fileName, isLooping);
+		SoundMixer.getMixer().playMusic(this.stream);
+	}
+
+	/**
+	 * Stops the current stream, if any. Runs on the SoundMixer's thread.
+	 *
+	 */
+	private void stopStream() {
+		if (this.stream != null) {
+			this.stream.stop();
+		}
 	}
 }
@@ -0,0 +1,177 @@
+package toolObjects;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Streams a music file to the SoundMixer. A low priority decoder thread
+ * decodes the file a little at a time into a small ring buffer, which the
+ * SoundMixer drains as it mixes. A looping stream reopens the file as soon as
+ * it ends, while the ring buffer still holds the end of the previous pass, so
+ * the loop has no gap. Only the ring buffer is ever held in memory.
+ */
+public class MusicStream implements Runnable {
+	// Constants.
+	private static final int RING_FRAMES = 1 << 15; // The frames in the ring.
+	private static final int RING_SIZE = RING_FRAMES * SoundMixer.CHANNELS;
+	private static final int CHUNK_BYTES = 8192; // The bytes decoded at once.
+	private static final int FULL_WAIT = 10; // The milliseconds to wait when
+												// the ring is full.
+
+	// Field Variables.
+	private String fileName; // The music file.
+	private boolean isLooping; // True if the music loops.
+	private short[] ring; // The decoded samples waiting to be mixed.
+	private volatile long written; // The samples written to the ring.
+	private volatile long read; // The samples read from the ring.
+	private volatile boolean isStopped; // True once the stream is stopped.
+	private volatile boolean isFinished; // True once the file is decoded.
+
+	/**
+	 * Constructs a MusicStream of the specified file and starts its decoder
+	 * thread.
+	 *
+	 * @param fileName
+	 *            the music file, such as "/music/levelMusic.mp3".
+	 * @param isLooping
+	 *            true if the music loops until it is stopped.
+	 */
+	public MusicStream(String fileName, boolean isLooping) {
+		this.fileName = fileName;
+		this.isLooping = isLooping;
+		this.ring = new short[RING_SIZE];
+		this.written = 0;
+		this.read = 0;
+		this.isStopped = false;
+		this.isFinished = false;
+
+		Thread thread = new Thread(this, "Music Decoder");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Stops the stream. The decoder thread ends and no more samples are mixed.
+	 *
+	 */
+	public void stop() {
+		this.isStopped = true;
+	}
+
+	/**
+	 * Returns true if the stream is stopped, or has played to its end.
+	 *
+	 * @return true if the stream is done.
+	 */
+	public boolean isDone() {
+		return this.isStopped
+				|| (this.isFinished && this.read == this.written);
+	}
+
+	/**
+	 * Decodes the file into the ring until the stream is stopped, or until
+	 * the file ends if it does not loop.
+	 *
+	 */
+	@Override
+	public void run() {
+		try {
+			do {
+				decode();
+			} while (this.isLooping && !this.isStopped);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Error: " + this.fileName
+					+ " could not be streamed.");
+		}
+		this.isFinished = true;
+	}
+
+	/**
+	 * Decodes one pass of the file into the ring. Other sample rates are
+	 * converted by repeating or skipping frames.
+	 *
+	 * @throws Exception
+	 *             if the file cannot be decoded.
+	 */
+	private void decode() throws Exception {
+		AudioInputStream audioInputStream = AudioSystem
+				.getAudioInputStream(MusicStream.class
+						.getResource(this.fileName));
+		AudioFormat baseFormat = audioInputStream.getFormat();
+		int channels = baseFormat.getChannels();
+		AudioFormat decodeFormat = new AudioFormat(
+				AudioFormat.Encoding.PCM_SIGNED, baseFormat.getSampleRate(),
+				16, channels, channels * 2, baseFormat.getSampleRate(), false);
+		AudioInputStream decodeAudioInputStream = AudioSystem
+				.getAudioInputStream(decodeFormat, audioInputStream);
+		try {
+			int frameBytes = channels * 2;
+			byte[] chunk = new byte[CHUNK_BYTES - CHUNK_BYTES % frameBytes];
+			double step = SoundMixer.SAMPLE_RATE / baseFormat.getSampleRate();
+			double frames = 0;
+			int count;
+			while (!this.isStopped
+					&& (count = decodeAudioInputStream.read(chunk)) > 0) {
+				for (int i = 0; i + frameBytes <= count; i += frameBytes) {
+					// Write the frame as often as the rates require.
+					frames += step;
+					while (frames >= 1) {
+						frames--;
+						if (!waitForRoom()) {
+							return;
+						}
+						int position = (int) (this.written % RING_SIZE);
+						for (int c = 0; c < SoundMixer.CHANNELS; c++) {
+							// Read the little-endian sample of the channel.
+							int index = i + 2 * Math.min(c, channels - 1);
+							int sample = (chunk[index] & 0xFF)
+									| (chunk[index + 1] << 8);
+							this.ring[position + c] = (short) sample;
+						}
+						this.written = this.written + SoundMixer.CHANNELS;
+					}
+				}
+			}
+		} finally {
+			audioInputStream.close();
+			decodeAudioInputStream.close();
+		}
+	}
+
+	/**
+	 * Waits until the ring has room for a frame.
+	 *
+	 * @return false if the stream was stopped while waiting.
+	 * @throws InterruptedException
+	 *             if the decoder thread is interrupted.
+	 */
+	private boolean waitForRoom() throws InterruptedException {
+		while (this.written - this.read > RING_SIZE - SoundMixer.CHANNELS) {
+			if (this.isStopped) {
+				return false;
+			}
+			Thread.sleep(FULL_WAIT);
+		}
+		return !this.isStopped;
+	}
+
+	/**
+	 * Adds the next decoded samples to the specified buffer. Called by the
+	 * SoundMixer. If the decoder has fallen behind, the rest of the buffer is
+	 * left as it is.
+	 *
+	 * @param buffer
+	 *            the mix buffer to add the samples to.
+	 */
+	void mixInto(int[] buffer) {
+		long start = this.read;
+		int count = (int) Math.min(buffer.length, this.written - start);
+		for (int i = 0; i < count; i++) {
+			buffer[i] += this.ring[(int) ((start + i) % RING_SIZE)];
+		}
+		this.read = start + count;
+	}
+}
@@ -0,0 +1,85 @@
+package toolObjects;
+
+import java.util.Arrays;
+
+/**
+ * An int array whose elements are kept in pages that are only allocated when
+ * an element in them is first set. Elements of pages that were never set read
+ * as 0, so a large array that is only used in places takes little memory. The
+ * pages can all be freed again at once.
+ */
+public class PagedIntArray {
+	// Constants.
+	public static final int PAGE_BITS = 12; // The log2 of the page size.
+	public static final int PAGE_SIZE = 1 << PAGE_BITS; // The elements in a
+														// page.
+	private static final int PAGE_MASK = PAGE_SIZE - 1; // The mask of an
+														// element in its page.
+
+	// Field Variables.
+	private int[][] pages; // The pages of elements, null until first set.
+	private int pageCount; // The number of allocated pages.
+
+	/**
+	 * Constructs a PagedIntArray of the specified length with no pages
+	 * allocated.
+	 *
+	 * @param length
+	 *            the number of elements.
+	 */
+	public PagedIntArray(int length) {
+		this.pages = new int[(length + PAGE_SIZE - 1) >> PAGE_BITS][];
+		this.pageCount = 0;
+	}
+
+	/**
+	 * Returns the element at the specified index.
+	 *
+	 * @param index
+	 *            the index of the element.
+	 * @return the element, or 0 if its page was never set.
+	 */
+	public int get(int index) {
+		int[] page = this.pages[index >> PAGE_BITS];
+		if (page == null) {
+			return 0;
+		}
+		return page[index & PAGE_MASK];
+	}
+
+	/**
+	 * Sets the element at the specified index, allocating its page if needed.
+	 *
+	 * @param index
+	 *            the index of the element.
+	 * @param value
+	 *            the new value of the element.
+	 */
+	public void set(int index, int value) {
+		int[] page = this.pages[index >> PAGE_BITS];
+		if (page == null) {
+			page = new int[PAGE_SIZE];
+			this.pages[index >> PAGE_BITS] = page;
+			this.pageCount++;
+		}
+		page[index & PAGE_MASK] = value;
+	}
+
+	/**
+	 * Frees every page, so that every element reads as 0.
+	 *
+	 */
+	public void clear() {
+		Arrays.fill(this.pages, null);
+		this.pageCount = 0;
+	}
+
+	/**
+	 * Returns the number of elements in the allocated pages.
+	 *
+	 * @return the allocated size in elements.
+	 */
+	public int getAllocatedSize() {
+		return this.pageCount * PAGE_SIZE;
+	}
+}
@@ -0,0 +1,38 @@
+package toolObjects;
+
+/**
+ * A sound effect decoded into PCM samples in the SoundMixer's format. Sounds
+ * are decoded once and shared through the AssetCache. Playing a Sound hands
+ * it to the SoundMixer, so the same Sound can be heard several times at once.
+ */
+public class Sound {
+	private short[] samples; // The 16 bit samples, interleaved by channel.
+
+	/**
+	 * Constructs a Sound of the specified samples, which must be in the
+	 * SoundMixer's format. The array is used directly, not copied.
+	 *
+	 * @param samples
+	 *            the 16 bit samples, interleaved by channel.
+	 */
+	public Sound(short[] samples) {
+		this.samples = samples;
+	}
+
+	/**
+	 * Plays the Sound once. Returns immediately and never blocks.
+	 *
+	 */
+	public void play() {
+		SoundMixer.getMixer().play(this);
+	}
+
+	/**
+	 * Returns the samples of the Sound.
+	 *
+	 * @return the 16 bit samples, interleaved by channel.
+	 */
+	short[] getSamples() {
+		return this.samples;
+	}
+}
@@ -0,0 +1,252 @@
+package toolObjects;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Mixes the sound effects and the music of the game into a single audio line.
+ * A fixed pool of voices plays the requested Sounds on the mixer's own thread,
+ * which adds their samples and the samples of the current MusicStream
+ * together block by block and writes the block to the line. When every voice
+ * is busy, a new Sound takes over the voice that has been playing the longest.
+ *
+ * Requests are posted to a fixed ring of slots, so play never blocks or
+ * allocates on the calling thread. Every other audio operation, such as
+ * starting and stopping music, is posted as a command and run on the mixer's
+ * thread before the next block is mixed.
+ */
+public class SoundMixer implements Runnable {
+	// Constants.
+	public static final float SAMPLE_RATE = 44100; // The samples per second.
+	public static final int CHANNELS = 2; // The number of channels.
+	public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16,
+			CHANNELS, true, false); // The format of the line and the Sounds.
+	private static final int VOICE_COUNT = 8; // The Sounds played at once.
+	private static final int BLOCK_FRAMES = 512; // The frames mixed at once.
+	private static final int LINE_BLOCKS = 4; // The blocks the line buffers.
+	private static final int REQUEST_SLOTS = 64; // The pending requests, a
+													// power of two.
+
+	// The shared mixer, created on first use.
+	private static SoundMixer mixer;
+
+	// Field Variables.
+	private AtomicReferenceArray<Sound> requests; // The ring of requested
+													// Sounds.
+	private AtomicInteger requestTail; // The next slot to post a request to.
+	private int requestHead; // The next slot to take a request from.
+	private ConcurrentLinkedQueue<Runnable> commands; // The commands waiting
+														// to run.
+	private Sound[] voices; // The Sound of each voice, null if free.
+	private int[] voicePositions; // The next sample of each voice.
+	private long[] voiceStarts; // The order in which the voices started.
+	private long startCount; // The number of voices started.
+	private int[] mixBuffer; // The summed samples of a block.
+	private byte[] outputBuffer; // The block in the line's format.
+	private MusicStream music; // The music, null if none.
+	private volatile boolean isRunning; // False if no line could be opened.
+
+	/**
+	 * Returns the shared SoundMixer, starting its thread on first use.
+	 *
+	 * @return the shared SoundMixer.
+	 */
+	public static synchronized SoundMixer getMixer() {
+		if (mixer == null) {
+			mixer = new SoundMixer();
+			Thread thread = new Thread(mixer, "Sound Mixer");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MAX_PRIORITY);
+			thread.start();
+		}
+		return mixer;
+	}
+
+	/**
+	 * Constructs a SoundMixer with every voice free.
+	 *
+	 */
+	private SoundMixer() {
+		this.requests = new AtomicReferenceArray<Sound>(REQUEST_SLOTS);
+		this.requestTail = new AtomicInteger();
+		this.requestHead = 0;
+		this.commands = new ConcurrentLinkedQueue<Runnable>();
+		this.voices = new Sound[VOICE_COUNT];
+		this.voicePositions = new int[VOICE_COUNT];
+		this.voiceStarts = new long[VOICE_COUNT];
+		this.startCount = 0;
+		this.mixBuffer = new int[BLOCK_FRAMES * CHANNELS];
+		this.outputBuffer = new byte[this.mixBuffer.length * 2];
+		this.music = null;
+		this.isRunning = true;
+	}
+
+	/**
+	 * Requests the specified Sound to be played. Returns immediately. If more
+	 * than REQUEST_SLOTS requests are pending, the oldest ones are replaced.
+	 *
+	 * @param sound
+	 *            the Sound to play.
+	 */
+	public void play(Sound sound) {
+		if (!this.isRunning || sound == null || sound.getSamples().length == 0) {
+			return;
+		}
+		int slot = this.requestTail.getAndIncrement() & (REQUEST_SLOTS - 1);
+		this.requests.set(slot, sound);
+	}
+
+	/**
+	 * Posts a command to run on the mixer's thread. Returns immediately.
+	 * Commands are dropped if no line could be opened.
+	 *
+	 * @param command
+	 *            the command to run.
+	 */
+	public void post(Runnable command) {
+		if (!this.isRunning) {
+			return;
+		}
+		this.commands.add(command);
+	}
+
+	/**
+	 * Plays the specified MusicStream in place of the current music. Must be
+	 * called from a command.
+	 *
+	 * @param stream
+	 *            the MusicStream to play.
+	 */
+	void playMusic(MusicStream stream) {
+		this.music = stream;
+	}
+
+	/**
+	 * Opens the line and mixes the voices into it until the program ends.
+	 *
+	 */
+	@Override
+	public void run() {
+		SourceDataLine line;
+		try {
+			line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, this.outputBuffer.length * LINE_BLOCKS);
+			line.start();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Error: No audio line for the sound.");
+			this.isRunning = false;
+			this.commands.clear();
+			return;
+		}
+
+		while (true) {
+			runCommands();
+			takeRequests();
+			mixBlock();
+
+			// Blocks until the line has room, which paces the mixer.
+			line.write(this.outputBuffer, 0, this.outputBuffer.length);
+		}
+	}
+
+	/**
+	 * Runs every posted command. A failing command does not stop the mixer.
+	 *
+	 */
+	private void runCommands() {
+		Runnable command;
+		while ((command = this.commands.poll()) != null) {
+			try {
+				command.run();
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.out.println("Error: An audio command failed.");
+			}
+		}
+	}
+
+	/**
+	 * Starts a voice for every pending request.
+	 *
+	 */
+	private void takeRequests() {
+		while (true) {
+			Sound sound = this.requests.getAndSet(this.requestHead
+					& (REQUEST_SLOTS - 1), null);
+			if (sound == null) {
+				return;
+			}
+			this.requestHead++;
+			startVoice(sound);
+		}
+	}
+
+	/**
+	 * Starts the specified Sound on a free voice, or on the voice that has
+	 * been playing the longest if none is free.
+	 *
+	 * @param sound
+	 *            the Sound to start.
+	 */
+	private void startVoice(Sound sound) {
+		int voice = 0;
+		for (int i = 0; i < VOICE_COUNT; i++) {
+			if (this.voices[i] == null) {
+				voice = i;
+				break;
+			}
+			if (this.voiceStarts[i] < this.voiceStarts[voice]) {
+				voice = i;
+			}
+		}
+		this.voices[voice] = sound;
+		this.voicePositions[voice] = 0;
+		this.voiceStarts[voice] = this.startCount++;
+	}
+
+	/**
+	 * Mixes the next block of every voice into the output buffer. Voices that
+	 * reach the end of their Sound are freed.
+	 *
+	 */
+	private void mixBlock() {
+		Arrays.fill(this.mixBuffer, 0);
+		for (int i = 0; i < VOICE_COUNT; i++) {
+			if (this.voices[i] == null) {
+				continue;
+			}
+			short[] samples = this.voices[i].getSamples();
+			int position = this.voicePositions[i];
+			int count = Math.min(this.mixBuffer.length, samples.length
+					- position);
+			for (int j = 0; j < count; j++) {
+				this.mixBuffer[j] += samples[position + j];
+			}
+			this.voicePositions[i] = position + count;
+			if (this.voicePositions[i] >= samples.length) {
+				this.voices[i] = null;
+			}
+		}
+
+		// Add the music.
+		MusicStream stream = this.music;
+		if (stream != null && !stream.isDone()) {
+			stream.mixInto(this.mixBuffer);
+		}
+
+		// Clamp the sums and write them as little-endian 16 bit samples.
+		for (int j = 0; j < this.mixBuffer.length; j++) {
+			int sample = Math.max(Short.MIN_VALUE,
+					Math.min(Short.MAX_VALUE, this.mixBuffer[j]));
+			this.outputBuffer[2 * j] = (byte) sample;
+			this.outputBuffer[2 * j + 1] = (byte) (sample >> 8);
+		}
+	}
+}
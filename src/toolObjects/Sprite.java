@@ -0,0 +1,75 @@
+package toolObjects;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * A Sprite is a region of a SpriteAtlas. Drawing a Sprite draws its region
+ * straight from the atlas image, so every Sprite draws from the same
+ * accelerated surface.
+ */
+public class Sprite {
+	private BufferedImage atlas; // The atlas image the Sprite is a region of.
+	private int atlasX; // The x coordinate of the region in the atlas.
+	private int atlasY; // The y coordinate of the region in the atlas.
+	private int width; // The width of the region in pixels.
+	private int height; // The height of the region in pixels.
+
+	/**
+	 * Constructs a Sprite for the specified region of an atlas image.
+	 *
+	 * @param atlas
+	 *            the atlas image.
+	 * @param atlasX
+	 *            the x coordinate of the region in the atlas.
+	 * @param atlasY
+	 *            the y coordinate of the region in the atlas.
+	 * @param width
+	 *            the width of the region in pixels.
+	 * @param height
+	 *            the height of the region in pixels.
+	 */
+	public Sprite(BufferedImage atlas, int atlasX, int atlasY, int width,
+			int height) {
+		this.atlas = atlas;
+		this.atlasX = atlasX;
+		this.atlasY = atlasY;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Draws the Sprite on the specified Graphics2D object with its top left
+	 * corner at the specified position.
+	 *
+	 * @param g2
+	 *            the Graphics2D object to draw on.
+	 * @param x
+	 *            the x coordinate to draw at.
+	 * @param y
+	 *            the y coordinate to draw at.
+	 */
+	public void draw(Graphics2D g2, int x, int y) {
+		g2.drawImage(this.atlas, x, y, x + this.width, y + this.height,
+				this.atlasX, this.atlasY, this.atlasX + this.width,
+				this.atlasY + this.height, null);
+	}
+
+	/**
+	 * Returns the width of the Sprite.
+	 *
+	 * @return the width in pixels.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Returns the height of the Sprite.
+	 *
+	 * @return the height in pixels.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+}
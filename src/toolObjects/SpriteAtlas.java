@@ -0,0 +1,154 @@
+package toolObjects;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A SpriteAtlas packs every sprite of the game into one image in the screen's
+ * compatible format, so drawing a sprite never needs a format conversion and
+ * the whole atlas can be kept in accelerated memory. Sprites are handed out
+ * as regions of the atlas by file name. The atlas is built once and shared by
+ * the whole game.
+ */
+public class SpriteAtlas {
+	// Constants.
+	private static final int ATLAS_WIDTH = 256; // The atlas width in pixels.
+	// The sprite files packed in the atlas.
+	public static final String[] SPRITE_FILES = { "/tile/dirt.png",
+			"/tile/clear.png", "/tile/emeraldOre.png", "/tile/chest.png",
+			"/tile/treasure.png", "/tile/barrier/barrier.png",
+			"/tile/barrier/barrierLBlock.png",
+			"/tile/barrier/barrierIBlock.png",
+			"/tile/barrier/barrierFBlock.png",
+			"/tile/barrier/barrierEBlock.png",
+			"/tile/barrier/barrierXBlock.png",
+			"/tile/barrier/barrierNumber0.png",
+			"/tile/barrier/barrierNumber1.png",
+			"/tile/barrier/barrierNumber2.png",
+			"/tile/barrier/barrierNumber3.png",
+			"/tile/barrier/barrierNumber4.png",
+			"/tile/barrier/barrierNumber5.png",
+			"/tile/barrier/barrierNumber6.png",
+			"/tile/barrier/barrierNumber7.png",
+			"/tile/barrier/barrierNumber8.png",
+			"/tile/barrier/barrierNumber9.png", "/digger/digger.png",
+			"/enemy/nobbin.png", "/enemy/hobbin.png",
+			"/bullet/bulletRight.png", "/bullet/bulletLeft.png",
+			"/bullet/bulletUp.png", "/bullet/bulletDown.png" };
+
+	private static SpriteAtlas atlas; // The shared atlas.
+
+	// Field Variables.
+	private BufferedImage image; // The atlas image.
+	private HashMap<String, Sprite> sprites; // The sprites by file name.
+
+	/**
+	 * Returns the shared SpriteAtlas, building it on first use.
+	 *
+	 * @return the shared SpriteAtlas.
+	 */
+	public static synchronized SpriteAtlas getAtlas() {
+		if (SpriteAtlas.atlas == null) {
+			SpriteAtlas.atlas = new SpriteAtlas(SPRITE_FILES);
+		}
+		return SpriteAtlas.atlas;
+	}
+
+	/**
+	 * Constructs a SpriteAtlas of the specified sprite files. The sprites are
+	 * placed left to right in rows no wider than the atlas.
+	 *
+	 * @param fileNames
+	 *            the sprite files to pack.
+	 */
+	public SpriteAtlas(String[] fileNames) {
+		this.sprites = new HashMap<String, Sprite>();
+
+		// Decode the sprites.
+		BufferedImage[] decoded = new BufferedImage[fileNames.length];
+		try {
+			for (int i = 0; i < fileNames.length; i++) {
+				decoded[i] = ImageIO.read(getClass().getResourceAsStream(
+						fileNames[i]));
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.out.println("Error: A file was not found.");
+			System.exit(0);
+		}
+
+		// Place the sprites in rows.
+		int[] placeX = new int[fileNames.length];
+		int[] placeY = new int[fileNames.length];
+		int x = 0;
+		int y = 0;
+		int rowHeight = 0;
+		for (int i = 0; i < decoded.length; i++) {
+			if (x + decoded[i].getWidth() > ATLAS_WIDTH) {
+				x = 0;
+				y = y + rowHeight;
+				rowHeight = 0;
+			}
+			placeX[i] = x;
+			placeY[i] = y;
+			x = x + decoded[i].getWidth();
+			rowHeight = Math.max(rowHeight, decoded[i].getHeight());
+		}
+
+		// Copy the sprites into the atlas.
+		this.image = createCompatibleImage(ATLAS_WIDTH, y + rowHeight,
+				Transparency.TRANSLUCENT);
+		Graphics2D g2 = this.image.createGraphics();
+		for (int i = 0; i < decoded.length; i++) {
+			g2.drawImage(decoded[i], placeX[i], placeY[i], null);
+			this.sprites.put(fileNames[i], new Sprite(this.image, placeX[i],
+					placeY[i], decoded[i].getWidth(), decoded[i].getHeight()));
+		}
+		g2.dispose();
+	}
+
+	/**
+	 * Returns the sprite decoded from the specified file.
+	 *
+	 * @param fileName
+	 *            the sprite file, such as "/tile/dirt.png".
+	 * @return the sprite, or null if the file is not in the atlas.
+	 */
+	public Sprite getSprite(String fileName) {
+		return this.sprites.get(fileName);
+	}
+
+	/**
+	 * Creates an image in the format of the screen, so it is drawn without a
+	 * conversion. A plain image is created when there is no screen.
+	 *
+	 * @param width
+	 *            the width of the image in pixels.
+	 * @param height
+	 *            the height of the image in pixels.
+	 * @param transparency
+	 *            the Transparency of the image.
+	 * @return the created image.
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height,
+			int transparency) {
+		if (GraphicsEnvironment.isHeadless()) {
+			int type = BufferedImage.TYPE_INT_ARGB;
+			if (transparency == Transparency.OPAQUE) {
+				type = BufferedImage.TYPE_INT_RGB;
+			}
+			return new BufferedImage(width, height, type);
+		}
+		GraphicsConfiguration configuration = GraphicsEnvironment
+				.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+				.getDefaultConfiguration();
+		return configuration.createCompatibleImage(width, height,
+				transparency);
+	}
+}
@@ -0,0 +1,258 @@
+package objects;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the paths an Enemy finds through the level's flow field are as
+ * long as the paths of a plain Breadth-First Search from the player's tile, on
+ * the shipped levels and after tiles are dug out or filled in.
+ */
+public class EnemyPathTest {
+	// Constants.
+	private static final String[] LEVEL_FILES = { "/text/level/Level 0.txt",
+			"/text/level/Level 1.txt", "/text/level/Level 2.txt",
+			"/text/level/Level 3.txt" }; // The shipped levels.
+	private static final int SAMPLES = 12; // The targets and starts per level.
+	private static final int CHANGES = 40; // The tiles changed between checks.
+	private static final int ROUNDS = 8; // The rounds of changes per level.
+	private static final int[] STEP_X = { -1, 1, 0, 0 }; // The neighbor offsets
+	private static final int[] STEP_Y = { 0, 0, -1, 1 }; // in the search order.
+
+	/**
+	 * Checks the path lengths from several start tiles to several player tiles
+	 * on every shipped level, for both terrain classes.
+	 *
+	 * @throws Exception
+	 *             if the player cannot be moved.
+	 */
+	@Test
+	public void testShippedLevels() throws Exception {
+		for (String fileName : LEVEL_FILES) {
+			Level level = new Level(fileName, 32);
+			Digger player = new Digger(level);
+			Random random = new Random(fileName.hashCode());
+			for (int terrain = Level.NOBBIN_TERRAIN; terrain <= Level.HOBBIN_TERRAIN; terrain++) {
+				for (int i = 0; i < SAMPLES; i++) {
+					int target = randomPassableTile(level, terrain, random);
+					checkPaths(level, player, terrain, target, random);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks the path lengths while tiles are dug out by the player or filled
+	 * in by falling gold, and while the player walks from tile to tile, so
+	 * the flow fields are checked after they are updated as well as after
+	 * they are searched.
+	 *
+	 * @throws Exception
+	 *             if the player cannot be moved.
+	 */
+	@Test
+	public void testChangedLevels() throws Exception {
+		for (String fileName : LEVEL_FILES) {
+			Level level = new Level(fileName, 32);
+			Digger player = new Digger(level);
+			Random random = new Random(fileName.hashCode());
+			for (int terrain = Level.NOBBIN_TERRAIN; terrain <= Level.HOBBIN_TERRAIN; terrain++) {
+				int target = randomPassableTile(level, terrain, random);
+				for (int round = 0; round < ROUNDS; round++) {
+					checkPaths(level, player, terrain, target, random);
+
+					// Dig out and fill in tiles with the player standing still.
+					digTiles(level, random);
+					checkPaths(level, player, terrain, target, random);
+					fillTiles(level, random);
+					checkPaths(level, player, terrain, target, random);
+
+					// Walk the player to a passable neighbor.
+					int direction = random.nextInt(STEP_X.length);
+					int x = target % level.getMapWidth() + STEP_X[direction];
+					int y = target / level.getMapWidth() + STEP_Y[direction];
+					if (x >= 0 && x < level.getMapWidth() && y >= 0
+							&& y < level.getMapHeight()
+							&& level.isPassable(terrain, level.getTile(x, y))) {
+						target = y * level.getMapWidth() + x;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Places the player on the specified target tile and checks the paths of
+	 * an Enemy of the specified terrain class from random passable tiles.
+	 *
+	 * @param level
+	 *            the level to check.
+	 * @param player
+	 *            the player on the level.
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @param target
+	 *            the player's tile by y * width + x.
+	 * @param random
+	 *            the source of the start tiles.
+	 * @throws Exception
+	 *             if the player cannot be moved.
+	 */
+	private void checkPaths(Level level, Digger player, int terrain,
+			int target, Random random) throws Exception {
+		int targetX = target % level.getMapWidth();
+		int targetY = target / level.getMapWidth();
+		movePlayer(player, targetX, targetY);
+		int[] expected = searchDistances(level, terrain, targetX, targetY);
+
+		for (int i = 0; i < SAMPLES; i++) {
+			int start = randomPassableTile(level, terrain, random);
+			Enemy enemy;
+			if (terrain == Level.NOBBIN_TERRAIN) {
+				enemy = new Nobbin(level, player);
+			} else {
+				enemy = new Hobbin(level, player);
+			}
+			enemy.setLevel(level);
+			enemy.tilePositionX = start % level.getMapWidth();
+			enemy.tilePositionY = start / level.getMapWidth();
+			enemy.run();
+
+			// The path holds the Enemy's tile and every step, and stays empty
+			// if the player cannot be reached.
+			assertEquals("terrain " + terrain + " from " + enemy.tilePositionX
+					+ "," + enemy.tilePositionY + " to " + targetX + ","
+					+ targetY, expected[start] + 1, enemy.pathLength);
+		}
+	}
+
+	/**
+	 * Digs out random dirt and emerald tiles.
+	 *
+	 * @param level
+	 *            the level to change.
+	 * @param random
+	 *            the source of the tiles to change.
+	 */
+	private void digTiles(Level level, Random random) {
+		for (int i = 0; i < CHANGES; i++) {
+			int x = 1 + random.nextInt(level.getMapWidth() - 2);
+			int y = 1 + random.nextInt(level.getMapHeight() - 2);
+			int tileID = level.getTile(x, y);
+			if (tileID == level.DIRT || tileID == level.EMERALD) {
+				level.updateTile(x, y, level.CLEAR);
+			}
+		}
+	}
+
+	/**
+	 * Fills random clear tiles with gold.
+	 *
+	 * @param level
+	 *            the level to change.
+	 * @param random
+	 *            the source of the tiles to change.
+	 */
+	private void fillTiles(Level level, Random random) {
+		for (int i = 0; i < CHANGES / 4; i++) {
+			int x = 1 + random.nextInt(level.getMapWidth() - 2);
+			int y = 1 + random.nextInt(level.getMapHeight() - 2);
+			if (level.getTile(x, y) == level.CLEAR) {
+				level.updateTile(x, y, level.GOLD);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of steps from every tile to the specified target tile
+	 * found by a plain Breadth-First Search over the tiles passable for the
+	 * specified terrain class. A target on an impassable tile, such as one
+	 * filled by gold, reaches no tile.
+	 *
+	 * @param level
+	 *            the level to search.
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @param targetX
+	 *            the x coordinate of the target tile.
+	 * @param targetY
+	 *            the y coordinate of the target tile.
+	 * @return the steps of each tile by y * width + x, or -1 if unreached.
+	 */
+	private int[] searchDistances(Level level, int terrain, int targetX,
+			int targetY) {
+		int width = level.getMapWidth();
+		int height = level.getMapHeight();
+		int[] distances = new int[width * height];
+		Arrays.fill(distances, -1);
+		ArrayDeque<Integer> open = new ArrayDeque<Integer>();
+		if (!level.isPassable(terrain, level.getTile(targetX, targetY))) {
+			return distances;
+		}
+		distances[targetY * width + targetX] = 0;
+		open.add(targetY * width + targetX);
+		while (!open.isEmpty()) {
+			int current = open.remove();
+			for (int i = 0; i < STEP_X.length; i++) {
+				int x = current % width + STEP_X[i];
+				int y = current / width + STEP_Y[i];
+				if (x < 0 || x >= width || y < 0 || y >= height
+						|| distances[y * width + x] != -1
+						|| !level.isPassable(terrain, level.getTile(x, y))) {
+					continue;
+				}
+				distances[y * width + x] = distances[current] + 1;
+				open.add(y * width + x);
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * Returns a random tile that is passable for the specified terrain class.
+	 *
+	 * @param level
+	 *            the level to pick from.
+	 * @param terrain
+	 *            the terrain class, NOBBIN_TERRAIN or HOBBIN_TERRAIN.
+	 * @param random
+	 *            the source of the tile.
+	 * @return the tile by y * width + x.
+	 */
+	private int randomPassableTile(Level level, int terrain, Random random) {
+		while (true) {
+			int x = random.nextInt(level.getMapWidth());
+			int y = random.nextInt(level.getMapHeight());
+			if (level.isPassable(terrain, level.getTile(x, y))) {
+				return y * level.getMapWidth() + x;
+			}
+		}
+	}
+
+	/**
+	 * Places the player on the specified tile.
+	 *
+	 * @param player
+	 *            the player to move.
+	 * @param x
+	 *            the x coordinate of the tile.
+	 * @param y
+	 *            the y coordinate of the tile.
+	 * @throws Exception
+	 *             if the player's position cannot be set.
+	 */
+	private void movePlayer(Digger player, int x, int y) throws Exception {
+		Field positionX = Digger.class.getDeclaredField("tilePositionX");
+		Field positionY = Digger.class.getDeclaredField("tilePositionY");
+		positionX.setAccessible(true);
+		positionY.setAccessible(true);
+		positionX.setDouble(player, x);
+		positionY.setDouble(player, y);
+	}
+}